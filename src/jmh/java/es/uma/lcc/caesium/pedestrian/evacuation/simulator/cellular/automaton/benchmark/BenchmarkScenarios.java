@@ -0,0 +1,92 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.examples.RandomScenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.examples.Supermarket;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Environment;
+
+import java.io.IOException;
+
+import static es.uma.lcc.caesium.statistics.Random.random;
+
+/**
+ * Scenarios shared by benchmarks. A scenario is named by one of:
+ * <ul>
+ *   <li>{@code RandomScenario}: a {@link RandomScenario}, always generated from same seed.</li>
+ *   <li>{@code Supermarket}: a {@link Supermarket}.</li>
+ *   <li>{@code Synthetic<n>}: a synthetic square grid with {@code n} rows and columns (see
+ *   {@link #synthetic(int)}).</li>
+ *   <li>path of a JSON environment file, relative to working directory, whose first domain is imported.</li>
+ * </ul>
+ */
+final class BenchmarkScenarios {
+  private static final String SYNTHETIC = "Synthetic";
+  /**
+   * Seed for generating random scenarios, so that all benchmarks use same one.
+   */
+  private static final long RANDOM_SCENARIO_SEED = 0;
+  /**
+   * Number of columns of scenarios imported from JSON environments.
+   */
+  private static final int DOMAIN_COLUMNS = 110;
+
+  private BenchmarkScenarios() {
+  }
+
+  /**
+   * Builds a scenario given its name.
+   *
+   * @param scenarioName name of scenario.
+   * @return scenario named {@code scenarioName}.
+   */
+  static Scenario scenario(String scenarioName) throws IOException, JsonException {
+    if (scenarioName.equals("RandomScenario")) {
+      random.setSeed(RANDOM_SCENARIO_SEED);
+      return RandomScenario.randomScenario();
+    }
+    if (scenarioName.equals("Supermarket")) {
+      return Supermarket.supermarket();
+    }
+    if (scenarioName.startsWith(SYNTHETIC)) {
+      return synthetic(Integer.parseInt(scenarioName.substring(SYNTHETIC.length())));
+    }
+    var domain = Environment.fromFile(scenarioName).getDomain(1);
+    return new Scenario.FromDomainBuilder(domain)
+        .cellDimension(domain.getWidth() / DOMAIN_COLUMNS)
+        .build();
+  }
+
+  /**
+   * Builds a large synthetic scenario: a square hall with an exit in the middle of each wall and 2x2 pillars placed
+   * every 10 cells, so that pedestrians have to walk around obstacles to reach exits.
+   *
+   * @param size number of rows and columns in scenario.
+   * @return a synthetic scenario with {@code size} rows and columns.
+   */
+  static Scenario synthetic(int size) {
+    var scenario =
+        new Scenario.Builder()
+            .rows(size)
+            .columns(size)
+            .cellDimension(0.4)
+            .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+            .build();
+
+    var exitWidth = 4;
+    var middle = (size - exitWidth) / 2;
+    scenario.setExit(new Rectangle(0, middle, 1, exitWidth));
+    scenario.setExit(new Rectangle(size - 1, middle, 1, exitWidth));
+    scenario.setExit(new Rectangle(middle, 0, exitWidth, 1));
+    scenario.setExit(new Rectangle(middle, size - 1, exitWidth, 1));
+
+    for (int row = 5; row + 2 < size - 5; row += 10) {
+      for (int column = 5; column + 2 < size - 5; column += 10) {
+        scenario.setBlock(new Rectangle(row, column, 2, 2));
+      }
+    }
+    return scenario;
+  }
+}
@@ -0,0 +1,50 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.DomainImporter;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Domain;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Environment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rasterizing bundled JSON domains into scenarios at several resolutions. Floor fields are computed lazily,
+ * so they are not included. JSON domains are read relative to working directory, so benchmark should be run from
+ * root of project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainImporterBenchmark {
+  @Param({"data/environments/environment-example.json"
+      , "data/environments/environment-example-supermarket.json"})
+  public String environmentFileName;
+
+  /**
+   * Number of columns of resulting scenario.
+   */
+  @Param({"110", "1000"})
+  public int columns;
+
+  private Domain domain;
+  private double cellDimension;
+
+  @Setup
+  public void setup() throws IOException, JsonException {
+    domain = Environment.fromFile(environmentFileName).getDomain(1);
+    cellDimension = domain.getWidth() / columns;
+  }
+
+  @Benchmark
+  public Scenario importDomain() {
+    return new DomainImporter(domain, cellDimension, DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .getScenario();
+  }
+}
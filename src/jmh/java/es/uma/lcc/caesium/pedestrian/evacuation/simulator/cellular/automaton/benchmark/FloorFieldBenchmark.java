@@ -0,0 +1,73 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.EuclideanStaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.ManhattanStaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.StaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.VonNeumannNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares computing static floor fields with Dijkstra's algorithm, Manhattan distances and Euclidean eikonal solvers
+ * (see {@link BenchmarkScenarios} for scenarios). JSON domains are read relative to working directory, so benchmark
+ * should be run from root of project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FloorFieldBenchmark {
+  @Param({"RandomScenario"
+      , "Supermarket"
+      , "Synthetic1000"
+      , "data/environments/environment-example.json"
+      , "data/environments/environment-example-supermarket.json"})
+  public String scenarioName;
+
+  @Param({"DijkstraMoore"
+      , "DijkstraVonNeumann"
+      , "Manhattan"
+      , "EuclideanFastMarching"
+      , "EuclideanFastSweeping"
+      , "EuclideanParallelFastSweeping"})
+  public String floorFieldType;
+
+  private Scenario scenario;
+  private Function<Scenario, StaticFloorField> buildFloorField;
+
+  @Setup
+  public void setup() throws IOException, JsonException {
+    scenario = BenchmarkScenarios.scenario(scenarioName);
+    buildFloorField = switch (floorFieldType) {
+      case "DijkstraMoore" -> scenario -> DijkstraStaticFloorField.of(scenario, MooreNeighbourhood::of);
+      case "DijkstraVonNeumann" -> scenario -> DijkstraStaticFloorField.of(scenario, VonNeumannNeighbourhood::of);
+      case "Manhattan" -> ManhattanStaticFloorField::of;
+      case "EuclideanFastMarching" ->
+          scenario -> EuclideanStaticFloorField.of(scenario, EuclideanStaticFloorField.Solver.FAST_MARCHING);
+      case "EuclideanFastSweeping" ->
+          scenario -> EuclideanStaticFloorField.of(scenario, EuclideanStaticFloorField.Solver.FAST_SWEEPING);
+      case "EuclideanParallelFastSweeping" -> scenario ->
+          EuclideanStaticFloorField.of(scenario, EuclideanStaticFloorField.Solver.PARALLEL_FAST_SWEEPING);
+      default -> throw new IllegalArgumentException("setup: unknown floor field " + floorFieldType);
+    };
+  }
+
+  /**
+   * Floor fields are only computed once, so a new one is created for each invocation.
+   */
+  @Benchmark
+  public StaticFloorField initialize() {
+    var floorField = buildFloorField.apply(scenario);
+    floorField.initialize();
+    return floorField;
+  }
+}
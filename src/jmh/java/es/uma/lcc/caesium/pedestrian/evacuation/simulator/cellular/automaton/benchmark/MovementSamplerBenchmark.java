@@ -0,0 +1,151 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.MovementSampler;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
+import es.uma.lcc.caesium.statistics.Random;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares choosing movements of pedestrians by collecting tentative movements in lists and by {@link MovementSampler}.
+ * Movements collected in lists are chosen either by generic {@link Random#discrete} sampler of statistics library, as
+ * pedestrians originally did, or by an explicit cumulative scan. Each movement is chosen among neighbours of a cell in a Moore neighbourhood, each of which is occupied with
+ * probability given by crowd density, so that number of candidates is that found at such density.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovementSamplerBenchmark {
+  private static final int NUMBER_OF_MOVEMENTS = 4096;
+  private static final int NUMBER_OF_DIRECTIONS = 8;
+  private static final int COLUMNS = 1000;
+  private static final double DESIRABILITY_EPSILON = 0.00001;
+
+  /**
+   * Pedestrians per cell.
+   */
+  @Param({"0.1", "0.3", "0.6", "0.9"})
+  public double density;
+
+  /**
+   * For each movement, cells of reachable neighbours (-1 if not reachable) and their desirabilities.
+   */
+  private int[][] neighbourCell;
+  private double[][] neighbourDesirability;
+  private SplittableRandom random;
+  private MovementSampler sampler;
+
+  private record TentativeMovement(Location location, double desirability) {
+  }
+
+  @Setup
+  public void setup() {
+    var generator = new SplittableRandom(0);
+    neighbourCell = new int[NUMBER_OF_MOVEMENTS][NUMBER_OF_DIRECTIONS];
+    neighbourDesirability = new double[NUMBER_OF_MOVEMENTS][NUMBER_OF_DIRECTIONS];
+    for (int movement = 0; movement < NUMBER_OF_MOVEMENTS; movement++) {
+      for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+        var isReachable = generator.nextDouble() >= density;
+        neighbourCell[movement][direction] = isReachable ? generator.nextInt(COLUMNS * COLUMNS) : -1;
+        neighbourDesirability[movement][direction] = Math.exp(-generator.nextDouble(10));
+      }
+    }
+    this.random = new SplittableRandom(0);
+    this.sampler = new MovementSampler();
+    Random.random.setSeed(0);
+  }
+
+  /**
+   * Collects reachable neighbours as tentative movements, with desirabilities shifted by minimum one.
+   */
+  private List<TentativeMovement> gradientMovements(int movement) {
+    var movements = new ArrayList<TentativeMovement>(NUMBER_OF_DIRECTIONS);
+    double minDesirability = Double.MAX_VALUE;
+    for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+      var neighbour = neighbourCell[movement][direction];
+      if (neighbour >= 0) {
+        var desirability = neighbourDesirability[movement][direction];
+        movements.add(new TentativeMovement(new Location(neighbour / COLUMNS, neighbour % COLUMNS), desirability));
+        if (desirability < minDesirability) {
+          minDesirability = desirability;
+        }
+      }
+    }
+    var gradientMovements = new ArrayList<TentativeMovement>(movements.size());
+    for (var m : movements) {
+      gradientMovements.add(new TentativeMovement(m.location()
+          , DESIRABILITY_EPSILON + m.desirability() - minDesirability));
+    }
+    return gradientMovements;
+  }
+
+  private Optional<Location> chooseWithDiscrete(int movement) {
+    var gradientMovements = gradientMovements(movement);
+    if (gradientMovements.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(Random.random.discrete(gradientMovements, TentativeMovement::desirability).location());
+  }
+
+  private Optional<Location> chooseWithLists(int movement) {
+    var gradientMovements = gradientMovements(movement);
+    if (gradientMovements.isEmpty()) {
+      return Optional.empty();
+    }
+
+    var totalDesirability = 0.0;
+    for (var m : gradientMovements) {
+      totalDesirability += m.desirability();
+    }
+    var threshold = random.nextDouble(totalDesirability);
+    var accumulatedDesirability = 0.0;
+    for (var m : gradientMovements) {
+      accumulatedDesirability += m.desirability();
+      if (threshold < accumulatedDesirability) {
+        return Optional.of(m.location());
+      }
+    }
+    return Optional.of(gradientMovements.get(gradientMovements.size() - 1).location());
+  }
+
+  private int chooseWithSampler(int movement) {
+    sampler.clear();
+    for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+      var neighbour = neighbourCell[movement][direction];
+      if (neighbour >= 0) {
+        sampler.add(neighbour, neighbourDesirability[movement][direction]);
+      }
+    }
+    return sampler.sample(random);
+  }
+
+  @Benchmark
+  public void discrete(Blackhole blackhole) {
+    for (int movement = 0; movement < NUMBER_OF_MOVEMENTS; movement++) {
+      blackhole.consume(chooseWithDiscrete(movement));
+    }
+  }
+
+  @Benchmark
+  public void lists(Blackhole blackhole) {
+    for (int movement = 0; movement < NUMBER_OF_MOVEMENTS; movement++) {
+      blackhole.consume(chooseWithLists(movement));
+    }
+  }
+
+  @Benchmark
+  public void sampler(Blackhole blackhole) {
+    for (int movement = 0; movement < NUMBER_OF_MOVEMENTS; movement++) {
+      blackhole.consume(chooseWithSampler(movement));
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.Neighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.VonNeumannNeighbourhood;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares enumerating neighbours of every cell in a grid through list returning API of {@link Neighbourhood} and
+ * through its primitive API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeighbourhoodBenchmark {
+  @Param({"Moore", "VonNeumann"})
+  public String neighbourhoodType;
+
+  @Param({"100", "1000"})
+  public int size;
+
+  private Neighbourhood neighbourhood;
+
+  @Setup
+  public void setup() {
+    neighbourhood = neighbourhoodType.equals("Moore")
+        ? new MooreNeighbourhood(size, size)
+        : new VonNeumannNeighbourhood(size, size);
+  }
+
+  @Benchmark
+  public void listAPI(Blackhole blackhole) {
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        for (var location : neighbourhood.neighbours(i, j)) {
+          blackhole.consume(location.row() * size + location.column());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void primitiveAPI(Blackhole blackhole) {
+    var numberOfDirections = neighbourhood.numberOfDirections();
+    var numberOfCells = size * size;
+    for (int cell = 0; cell < numberOfCells; cell++) {
+      for (int direction = 0; direction < numberOfDirections; direction++) {
+        var neighbour = neighbourhood.neighbour(cell, direction);
+        if (neighbour >= 0) {
+          blackhole.consume(neighbour);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.AllocationFreeCellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomatonParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.ParallelCellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.ScheduledCellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.StripedCellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures running time steps of automata on several scenarios (see {@link BenchmarkScenarios}) and crowd densities.
+ * Each invocation runs a fixed number of time steps on a new automaton, so that number of pedestrians does not
+ * decrease from one invocation to the next as they evacuate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeStepBenchmark {
+  /**
+   * Number of time steps run by each invocation.
+   */
+  private static final int NUMBER_OF_TIME_STEPS = 10;
+  private static final long SEED = 0;
+
+  @Param({"RandomScenario", "Supermarket", "Synthetic1000"})
+  public String scenarioName;
+
+  /**
+   * Fraction of non-blocked cells initially occupied by pedestrians.
+   */
+  @Param({"0.05", "0.2", "0.5"})
+  public double density;
+
+  @Param({"CellularAutomaton"
+      , "AllocationFreeCellularAutomaton"
+      , "ScheduledCellularAutomaton"
+      , "ParallelCellularAutomaton"
+      , "StripedCellularAutomaton"})
+  public String automatonType;
+
+  private Scenario scenario;
+  private CellularAutomaton automaton;
+
+  /**
+   * Builds an automaton on a scenario and places pedestrians in it.
+   *
+   * @param scenario      scenario where automaton runs.
+   * @param automatonType name of class of automaton.
+   * @param density       fraction of non-blocked cells initially occupied by pedestrians.
+   * @param seed          seed for simulation.
+   * @return an automaton with pedestrians placed in it.
+   */
+  static CellularAutomaton automaton(Scenario scenario, String automatonType, double density, long seed) {
+    var parameters =
+        new CellularAutomatonParameters.Builder()
+            .scenario(scenario)
+            .timeLimit(10 * 60)
+            .neighbourhood(MooreNeighbourhood::of)
+            .pedestrianReferenceVelocity(1.3)
+            .seed(seed)
+            .build();
+
+    CellularAutomaton automaton = switch (automatonType) {
+      case "CellularAutomaton" -> new CellularAutomaton(parameters);
+      case "AllocationFreeCellularAutomaton" -> new AllocationFreeCellularAutomaton(parameters);
+      case "ScheduledCellularAutomaton" -> new ScheduledCellularAutomaton(parameters);
+      case "ParallelCellularAutomaton" -> new ParallelCellularAutomaton(parameters);
+      case "StripedCellularAutomaton" -> new StripedCellularAutomaton(parameters);
+      default -> throw new IllegalArgumentException("automaton: unknown automaton " + automatonType);
+    };
+
+    var numberOfFreeCells = 0;
+    for (int row = 0; row < scenario.getRows(); row++) {
+      for (int column = 0; column < scenario.getColumns(); column++) {
+        if (!scenario.isBlocked(row, column)) {
+          numberOfFreeCells++;
+        }
+      }
+    }
+    var random = automaton.getRandomGenerator();
+    automaton.addPedestriansUniformly((int) (density * numberOfFreeCells), () ->
+        new PedestrianParameters.Builder()
+            .fieldAttractionBias(random.nextDouble(1.0, 10.0))
+            .crowdRepulsion(random.nextDouble(0.1, 0.5))
+            .velocityPercent(random.nextDouble(0.3, 1.0))
+            .build());
+    return automaton;
+  }
+
+  @Setup(Level.Trial)
+  public void setupTrial() throws IOException, JsonException {
+    scenario = BenchmarkScenarios.scenario(scenarioName);
+    // only computed once for all invocations
+    scenario.getStaticFloorField().initialize();
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    automaton = automaton(scenario, automatonType, density, SEED);
+  }
+
+  @Benchmark
+  public CellularAutomaton timeSteps() {
+    for (int step = 0; step < NUMBER_OF_TIME_STEPS; step++) {
+      automaton.timeStep();
+    }
+    return automaton;
+  }
+}
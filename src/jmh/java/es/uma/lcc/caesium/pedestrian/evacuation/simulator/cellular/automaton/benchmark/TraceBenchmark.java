@@ -0,0 +1,49 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.benchmark;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building trace of a whole simulation from trajectories of pedestrians, on several scenarios (see
+ * {@link BenchmarkScenarios}). Simulation is run once, before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraceBenchmark {
+  private static final long SEED = 0;
+
+  @Param({"RandomScenario", "Supermarket", "Synthetic300"})
+  public String scenarioName;
+
+  /**
+   * Fraction of non-blocked cells initially occupied by pedestrians.
+   */
+  @Param({"0.01", "0.05"})
+  public double density;
+
+  @Param({"CellularAutomaton", "AllocationFreeCellularAutomaton"})
+  public String automatonType;
+
+  private CellularAutomaton automaton;
+
+  @Setup
+  public void setup() throws IOException, JsonException {
+    var scenario = BenchmarkScenarios.scenario(scenarioName);
+    automaton = TimeStepBenchmark.automaton(scenario, automatonType, density, SEED);
+    automaton.simulate();
+  }
+
+  @Benchmark
+  public Trace getTrace() {
+    return automaton.getTrace();
+  }
+}
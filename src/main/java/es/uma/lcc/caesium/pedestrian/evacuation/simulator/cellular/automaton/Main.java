@@ -1,6 +1,5 @@
 package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton;
 
-import com.github.cliftonlabs.json_simple.Jsoner;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomatonParameters;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.Statistics;
@@ -8,9 +7,10 @@ import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.aut
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.examples.RandomScenario;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.examples.Supermarket;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.JsonTraceWriter;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.function.Supplier;
 
 import static es.uma.lcc.caesium.statistics.Random.random;
@@ -48,19 +48,29 @@ class Main {
     var numberOfPedestrians = random.nextInt(150, 600);
     automaton.addPedestriansUniformly(numberOfPedestrians, pedestrianParametersSupplier);
 
+    // write trace to json file as simulation runs
+    String fileName = "data/traces/trace.json";
+    JsonTraceWriter traceWriter = null;
+    try {
+      traceWriter = JsonTraceWriter.of(Path.of(fileName));
+      automaton.setTraceSink(traceWriter);
+    } catch (IOException e) {
+      // simulation is run anyway, without a trace
+      e.printStackTrace();
+    }
+
     automaton.runGUI(); // automaton.run() to run without GUI
     Statistics statistics = automaton.computeStatistics();
     System.out.println(statistics);
 
-    // write trace to json file
-    var trace = automaton.getTrace();
-    String fileName = "data/traces/trace.json";
-    try (FileWriter fileWriter = new FileWriter(fileName)) {
-      fileWriter.write(Jsoner.prettyPrint(trace.toJson().toJson()));
-      fileWriter.flush();
-      System.out.printf("Trace written to file %s successfully.%n", fileName);
-    } catch (IOException e) {
-      e.printStackTrace();
+    if (traceWriter != null) {
+      automaton.setTraceSink(null);
+      try {
+        traceWriter.close();
+        System.out.printf("Trace written to file %s successfully.%n", fileName);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
     }
   }
 }
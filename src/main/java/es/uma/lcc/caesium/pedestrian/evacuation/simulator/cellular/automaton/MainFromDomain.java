@@ -1,19 +1,20 @@
 package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton;
 
 import com.github.cliftonlabs.json_simple.JsonException;
-import com.github.cliftonlabs.json_simple.Jsoner;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomatonParameters;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.Statistics;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.CachedStaticFloorField;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.JsonTraceWriter;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Domain;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Environment;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.function.Supplier;
 
 import static es.uma.lcc.caesium.statistics.Random.random;
@@ -31,7 +32,9 @@ public class MainFromDomain {
 
     Scenario scenario = new Scenario.FromDomainBuilder(domain)
         .cellDimension(domain.getWidth() / 110)
-        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        // floor field of a domain is only computed on first run, and read from cache on later ones
+        .floorField(CachedStaticFloorField.of(DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE
+            , Path.of("data/floorFields")))
         .build();
 
     var cellularAutomatonParameters =
@@ -56,19 +59,29 @@ public class MainFromDomain {
     var numberOfPedestrians = random.nextInt(150, 600);
     automaton.addPedestriansUniformly(numberOfPedestrians, pedestrianParametersSupplier);
 
+    // write trace to json file as simulation runs
+    String fileName = "data/traces/trace.json";
+    JsonTraceWriter traceWriter = null;
+    try {
+      traceWriter = JsonTraceWriter.of(Path.of(fileName));
+      automaton.setTraceSink(traceWriter);
+    } catch (IOException e) {
+      // simulation is run anyway, without a trace
+      e.printStackTrace();
+    }
+
     automaton.runGUI(); // automaton.run() to run without GUI
     Statistics statistics = automaton.computeStatistics();
     System.out.println(statistics);
 
-    // write trace to json file
-    var trace = automaton.getTrace();
-    String fileName = "data/traces/trace.json";
-    try (FileWriter fileWriter = new FileWriter(fileName)) {
-      fileWriter.write(Jsoner.prettyPrint(trace.toJson().toJson()));
-      fileWriter.flush();
-      System.out.printf("Trace written to file %s successfully.%n", fileName);
-    } catch (IOException e) {
-      e.printStackTrace();
+    if (traceWriter != null) {
+      automaton.setTraceSink(null);
+      try {
+        traceWriter.close();
+        System.out.printf("Trace written to file %s successfully.%n", fileName);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
     }
   }
 }
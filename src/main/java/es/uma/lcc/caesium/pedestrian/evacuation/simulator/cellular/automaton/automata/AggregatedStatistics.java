@@ -0,0 +1,151 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Class for aggregating statistics collected after several replications of a simulation. Each field is described by
+ * its mean across replications together with a confidence interval for such mean.
+ *
+ * @param numberOfReplications         number of replications aggregated.
+ * @param meanSteps                    aggregated mean number of steps taken by evacuated pedestrians.
+ * @param meanEvacuationTime           aggregated mean evacuation time for evacuated pedestrians.
+ * @param medianSteps                  aggregated median number of steps taken by evacuated pedestrians.
+ * @param medianEvacuationTime         aggregated median evacuation time for evacuated pedestrians.
+ * @param numberOfEvacuees             aggregated number of pedestrians that could evacuate the scenario.
+ * @param numberOfNonEvacuees          aggregated number of pedestrians that could not evacuate the scenario.
+ * @param floorFieldInitializationTime time (in seconds) it took to compute static floor field, which is computed
+ *                                     only once and shared by all replications.
+ */
+public record AggregatedStatistics(
+    int numberOfReplications
+    , ConfidenceInterval meanSteps
+    , ConfidenceInterval meanEvacuationTime
+    , ConfidenceInterval medianSteps
+    , ConfidenceInterval medianEvacuationTime
+    , ConfidenceInterval numberOfEvacuees
+    , ConfidenceInterval numberOfNonEvacuees
+    , double floorFieldInitializationTime) {
+
+  /**
+   * Default confidence level for intervals.
+   */
+  public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+
+  /**
+   * Class representing a confidence interval for the mean of a sample.
+   *
+   * @param mean            sample mean.
+   * @param lower           lower bound of interval.
+   * @param upper           upper bound of interval.
+   * @param confidenceLevel confidence level of interval.
+   */
+  public record ConfidenceInterval(double mean, double lower, double upper, double confidenceLevel) {
+    /**
+     * Computes a confidence interval for the mean of a sample by using a normal approximation, which is adequate
+     * for the large number of replications used in Monte Carlo studies. Values which are not finite (e.g. mean
+     * evacuation time of a replication with no evacuees) are ignored.
+     *
+     * @param sample          sample values.
+     * @param confidenceLevel confidence level of interval (in (0, 1)).
+     * @return confidence interval for the mean of sample.
+     */
+    public static ConfidenceInterval of(double[] sample, double confidenceLevel) {
+      if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+        throw new IllegalArgumentException("ConfidenceInterval: confidence level must be in (0, 1)");
+      }
+      int n = 0;
+      double sum = 0;
+      for (var x : sample) {
+        if (Double.isFinite(x)) {
+          n++;
+          sum += x;
+        }
+      }
+      if (n == 0) {
+        return new ConfidenceInterval(Double.NaN, Double.NaN, Double.NaN, confidenceLevel);
+      }
+      double mean = sum / n;
+      if (n == 1) {
+        return new ConfidenceInterval(mean, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, confidenceLevel);
+      }
+      double sumOfSquares = 0;
+      for (var x : sample) {
+        if (Double.isFinite(x)) {
+          sumOfSquares += (x - mean) * (x - mean);
+        }
+      }
+      double standardError = Math.sqrt(sumOfSquares / (n - 1) / n);
+      double halfWidth = normalQuantile(0.5 + confidenceLevel / 2) * standardError;
+      return new ConfidenceInterval(mean, mean - halfWidth, mean + halfWidth, confidenceLevel);
+    }
+
+    /**
+     * Quantile function of standard normal distribution (Acklam's rational approximation, relative error below
+     * 1.15e-9).
+     */
+    private static double normalQuantile(double p) {
+      final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+          1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+      final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+          6.680131188771972e+01, -1.328068155288572e+01};
+      final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+          -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+      final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+          3.754408661907416e+00};
+      final double pLow = 0.02425;
+
+      if (p < pLow) {
+        double q = Math.sqrt(-2 * Math.log(p));
+        return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+            / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+      } else if (p <= 1 - pLow) {
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+            / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+      } else {
+        double q = Math.sqrt(-2 * Math.log(1 - p));
+        return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+            / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+      }
+    }
+  }
+
+  private static ConfidenceInterval aggregate(List<Statistics> statistics, ToDoubleFunction<Statistics> field,
+                                              double confidenceLevel) {
+    var sample = new double[statistics.size()];
+    for (int i = 0; i < sample.length; i++) {
+      sample[i] = field.applyAsDouble(statistics.get(i));
+    }
+    return ConfidenceInterval.of(sample, confidenceLevel);
+  }
+
+  /**
+   * Aggregates statistics collected after several replications.
+   *
+   * @param statistics      statistics collected after each replication.
+   * @param confidenceLevel confidence level for intervals (in (0, 1)).
+   * @return aggregated statistics.
+   */
+  public static AggregatedStatistics of(List<Statistics> statistics, double confidenceLevel) {
+    return new AggregatedStatistics(statistics.size()
+        , aggregate(statistics, Statistics::meanSteps, confidenceLevel)
+        , aggregate(statistics, Statistics::meanEvacuationTime, confidenceLevel)
+        , aggregate(statistics, Statistics::medianSteps, confidenceLevel)
+        , aggregate(statistics, Statistics::medianEvacuationTime, confidenceLevel)
+        , aggregate(statistics, Statistics::numberOfEvacuees, confidenceLevel)
+        , aggregate(statistics, Statistics::numberOfNonEvacuees, confidenceLevel)
+        , statistics.isEmpty() ? Double.NaN : statistics.get(0).floorFieldInitializationTime());
+  }
+
+  /**
+   * Aggregates statistics collected after several replications by using 95% confidence intervals.
+   *
+   * @param statistics statistics collected after each replication.
+   * @return aggregated statistics.
+   */
+  public static AggregatedStatistics of(List<Statistics> statistics) {
+    return of(statistics, DEFAULT_CONFIDENCE_LEVEL);
+  }
+}
@@ -0,0 +1,331 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.BitGrid;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.DesirabilityEvaluator;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.MovementSampler;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.Pedestrian;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianStore;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.TraceSink;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory.Trajectory;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Canvas;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Palette;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+import es.uma.lcc.caesium.statistics.Descriptive;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Cellular Automaton for simulating pedestrian evacuation whose time steps do not allocate objects. State of
+ * pedestrians is kept in a {@link PedestrianStore}, as primitive arrays indexed by pedestrian slot (the order in
+ * which pedestrians were added), and cells are identified by their index in padded grids of scenario (see
+ * {@link BitGrid}). With default {@link PedestrianStore.Removal#ORDERED} removal policy, trajectories followed by
+ * pedestrians for a given seed are the same as those produced by {@link CellularAutomaton}. Neighbours are
+ * enumerated by adding offsets of directions in neighbourhood to index of a cell. As cells bordering the scenario are
+ * blocked, they are never reachable, so no bounds checks are needed.
+ * <p>
+ * Paths of pedestrians are recorded in trajectories created by
+ * {@link CellularAutomatonParameters#trajectorySupplier()}, whose buffers grow geometrically, so they are only
+ * reallocated a logarithmic number of times during a simulation.
+ */
+public class AllocationFreeCellularAutomaton extends CellularAutomaton {
+  /**
+   * Initial capacity of array of trajectories.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * State of all pedestrians added to this automaton.
+   */
+  protected final PedestrianStore pedestrians;
+  /**
+   * Path followed by each pedestrian during simulation.
+   */
+  protected Trajectory[] trajectories;
+  /**
+   * Tables for evaluating desirability of moving to a cell for each pedestrian.
+   */
+  protected DesirabilityEvaluator.Profile[] profiles;
+  /**
+   * Reusable view of pedestrians within the scenario for trace sink.
+   */
+  private final TraceSink.Crowd crowd = new TraceSink.Crowd() {
+    @Override
+    public int size() {
+      return pedestrians.numberOfInScenario();
+    }
+
+    @Override
+    public void forEach(TraceSink.PedestrianConsumer consumer) {
+      // slots are assigned in order of creation, so they are already sorted by identifier
+      for (int pedestrian = 0; pedestrian < pedestrians.size(); pedestrian++) {
+        if (pedestrians.isInScenario(pedestrian)) {
+          consumer.accept(pedestrians.identifier(pedestrian), pedestrians.row(pedestrian)
+              , pedestrians.column(pedestrian));
+        }
+      }
+    }
+  };
+
+  /**
+   * Creates a new allocation free Cellular Automaton with provided parameters. Pedestrians evacuating the scenario
+   * are removed preserving order of remaining ones, so that trajectories are the same as those produced by
+   * {@link CellularAutomaton}.
+   *
+   * @param parameters parameters describing this automaton.
+   */
+  public AllocationFreeCellularAutomaton(CellularAutomatonParameters parameters) {
+    this(parameters, PedestrianStore.Removal.ORDERED);
+  }
+
+  /**
+   * Creates a new allocation free Cellular Automaton with provided parameters.
+   *
+   * @param parameters parameters describing this automaton.
+   * @param removal    policy for removing pedestrians evacuating the scenario.
+   */
+  public AllocationFreeCellularAutomaton(CellularAutomatonParameters parameters, PedestrianStore.Removal removal) {
+    super(parameters);
+    this.pedestrians = new PedestrianStore(removal);
+    this.trajectories = new Trajectory[INITIAL_CAPACITY];
+    this.profiles = new DesirabilityEvaluator.Profile[INITIAL_CAPACITY];
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    // also called from superclass constructor, when store has not been created yet
+    if (pedestrians != null) {
+      pedestrians.clear();
+    }
+  }
+
+  @Override
+  public boolean addPedestrian(int row, int column, PedestrianParameters parameters) {
+    assert row >= 0 && row < getRows() : "addPedestrian: invalid row";
+    assert column >= 0 && column < getColumns() : "addPedestrian: invalid column";
+    if (isCellReachable(row, column)) {
+      var pedestrian = pedestrians.add(row, column, parameters);
+      if (pedestrian >= trajectories.length) {
+        trajectories = Arrays.copyOf(trajectories, 2 * trajectories.length);
+        profiles = Arrays.copyOf(profiles, 2 * profiles.length);
+      }
+      trajectories[pedestrian] = this.parameters.trajectorySupplier().get();
+      profiles[pedestrian] = desirabilityEvaluator.profile(parameters);
+      record(pedestrian);
+      occupy(occupied.index(row, column));
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Appends current cell of a pedestrian to its path.
+   *
+   * @param pedestrian slot of pedestrian.
+   */
+  protected void record(int pedestrian) {
+    trajectories[pedestrian].add(pedestrians.row(pedestrian), pedestrians.column(pedestrian));
+  }
+
+  private boolean isCellReachable(int cell) {
+    return !occupied.get(cell) && !scenario.getBlockedGrid().get(cell);
+  }
+
+  /**
+   * Chooses randomly next cell for a pedestrian. Computes same desirabilities, in same order, and draws same random
+   * numbers as {@link Pedestrian#chooseMovement()}.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @return index of chosen cell or -1 if pedestrian does not move.
+   */
+  protected int chooseMovement(int pedestrian) {
+    return chooseMovement(pedestrian, random, movementSampler);
+  }
+
+  /**
+   * Chooses randomly next cell for a pedestrian by using given random generator and sampler. Only reads current
+   * state of automaton, so it can be called concurrently for different pedestrians as long as each thread uses its
+   * own random generator and sampler.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @param random     random generator used to choose movement.
+   * @param sampler    scratch sampler used to choose movement.
+   * @return index of chosen cell or -1 if pedestrian does not move.
+   */
+  protected int chooseMovement(int pedestrian, RandomGenerator random, MovementSampler sampler) {
+    if (random.nextDouble() >= pedestrians.velocityPercent(pedestrian)) {
+      // do not move at this step to respect pedestrian speed
+      return -1;
+    }
+    return chooseDestination(pedestrian, random, sampler);
+  }
+
+  /**
+   * Chooses randomly next cell for a pedestrian which tries to move at this time step, by using given random
+   * generator and sampler. Only reads current state of automaton.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @param random     random generator used to choose movement.
+   * @param sampler    scratch sampler used to choose movement.
+   * @return index of chosen cell or -1 if no neighbouring cell is reachable.
+   */
+  protected int chooseDestination(int pedestrian, RandomGenerator random, MovementSampler sampler) {
+    var profile = profiles[pedestrian];
+    var numberOfDirections = cellOffsets.length;
+    var origin = occupied.index(pedestrians.row(pedestrian), pedestrians.column(pedestrian));
+
+    sampler.clear();
+    for (int direction = 0; direction < numberOfDirections; direction++) {
+      var candidate = origin + cellOffsets[direction];
+      if (isCellReachable(candidate)) {
+        // reachable cells around new location are counted incrementally as pedestrians move
+        var numberOfReachableCellsAround = numberOfReachableNeighbours[candidate];
+        assert numberOfReachableCellsAround == countReachableNeighbours(candidate)
+            : "chooseMovement: cached number of reachable neighbours differs from actual one";
+
+        // attraction to exits and repulsion of crowded locations
+        sampler.add(candidate, profile.desirability(candidate, numberOfReachableCellsAround));
+      }
+    }
+    // -1 if cannot make a movement
+    return sampler.sample(random);
+  }
+
+  /**
+   * Prepares moving pedestrians within the scenario in a time step. Shuffles them so that they are processed in
+   * random order, drawing same numbers as {@link CellularAutomaton#shuffle(java.util.List)}. Subclasses may extend
+   * it to do further work before pedestrians are moved.
+   */
+  protected void prepareTimeStep() {
+    pedestrians.shuffleInScenario(random);
+  }
+
+  @Override
+  public void timeStep() {
+    writeSnapshot();
+
+    // clear new state
+    clearCells(occupiedNextState);
+
+    synchronized (this) {
+      prepareTimeStep();
+
+      var position = 0;
+      while (position < pedestrians.inScenarioLength()) {
+        var pedestrian = pedestrians.inScenario(position);
+        var row = pedestrians.row(pedestrian);
+        var column = pedestrians.column(pedestrian);
+
+        if (scenario.isExit(row, column)) {
+          // pedestrian exits scenario
+          changeOccupancy(occupied.index(row, column), false);
+          if (pedestrians.evacuate(position, timeSteps)) {
+            // another pedestrian took its position in list
+            continue;
+          }
+        } else {
+          var destination = chooseMovement(pedestrian);
+          if (destination < 0 || occupiedNextState.get(destination)) {
+            // no new location or new location already taken by another pedestrian. Don't move
+            occupiedNextState.set(row, column, true);
+          } else {
+            // move to new location
+            occupiedNextState.set(destination);
+            changeOccupancy(occupied.index(row, column), false);
+            changeOccupancy(destination, true);
+            pedestrians.moveTo(pedestrian, occupied.row(destination), occupied.column(destination));
+          }
+          record(pedestrian);
+        }
+        position++;
+      }
+      pedestrians.compactInScenario();
+    }
+    // make next state current one
+    var temp = occupied;
+    occupied = occupiedNextState;
+    occupiedNextState = temp;
+    applyOccupancyChanges();
+
+    timeSteps++;
+  }
+
+  @Override
+  public int numberOfEvacuees() {
+    return pedestrians.numberOfOutOfScenario();
+  }
+
+  @Override
+  public int numberOfNonEvacuees() {
+    return pedestrians.numberOfInScenario();
+  }
+
+  @Override
+  public double[] evacuationTimes() {
+    double[] times = new double[numberOfEvacuees()];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = pedestrians.exitTimeSteps(pedestrians.outOfScenario(i)) * parameters.timePerTick();
+    }
+    return times;
+  }
+
+  @Override
+  public double[] distancesToClosestExit() {
+    double[] shortestDistances = new double[numberOfNonEvacuees()];
+    for (int i = 0; i < shortestDistances.length; i++) {
+      var pedestrian = pedestrians.inScenario(i);
+      var shortestDistance = Double.MAX_VALUE;
+      for (var exit : getScenario().exits()) {
+        var distance = exit.distance(pedestrians.row(pedestrian), pedestrians.column(pedestrian));
+        if (distance < shortestDistance)
+          shortestDistance = distance;
+      }
+      shortestDistances[i] = shortestDistance * getScenario().getCellDimension();
+    }
+    return shortestDistances;
+  }
+
+  @Override
+  public Statistics computeStatistics() {
+    double[] evacuationTimes = evacuationTimes();
+    int[] steps = new int[numberOfEvacuees()];
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = pedestrians.numberOfSteps(pedestrians.outOfScenario(i));
+    }
+    double meanSteps = Descriptive.mean(steps);
+    double meanEvacuationTime = Descriptive.mean(evacuationTimes);
+    double medianSteps = Descriptive.median(steps);
+    double medianEvacuationTime = Descriptive.median(evacuationTimes);
+
+    return new Statistics(meanSteps, meanEvacuationTime
+        , medianSteps, medianEvacuationTime
+        , numberOfEvacuees(), numberOfNonEvacuees()
+        , scenario.getStaticFloorField().getInitializationTime());
+  }
+
+  @Override
+  void paint(Canvas canvas) {
+    scenario.paint(canvas);
+    synchronized (this) {
+      for (int i = 0; i < pedestrians.inScenarioLength(); i++) {
+        var pedestrian = pedestrians.inScenario(i);
+        Pedestrian.paint(canvas, pedestrians.row(pedestrian), pedestrians.column(pedestrian)
+            , pedestrians.velocityPercent(pedestrian), Palette.PEDESTRIAN_FILL, Palette.PEDESTRIAN_OUTLINE);
+      }
+    }
+  }
+
+  @Override
+  protected TraceSink.Crowd crowd() {
+    return crowd;
+  }
+
+  @Override
+  public Trace getTrace() {
+    // slots are assigned in order of creation, so pedestrians are already sorted by identifier
+    return getTrace(pedestrians.size(), pedestrians::identifier, slot -> trajectories[slot]);
+  }
+}
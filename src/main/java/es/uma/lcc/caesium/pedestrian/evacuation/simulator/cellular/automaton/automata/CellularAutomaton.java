@@ -1,24 +1,34 @@
 package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
 
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.BitGrid;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.JournaledBitGrid;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.Neighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.DesirabilityEvaluator;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.MovementSampler;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.Pedestrian;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianFactory;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.TraceSink;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory.Trajectory;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Canvas;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Frame;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Palette;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Coordinates;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Snapshot;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
 import es.uma.lcc.caesium.statistics.Descriptive;
 
-import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
-
-import static es.uma.lcc.caesium.statistics.Random.random;
+import java.util.random.RandomGenerator;
 
 
 /**
@@ -40,13 +50,39 @@ public class CellularAutomaton {
    */
   protected final Neighbourhood neighbourhood;
   /**
-   * {@code true} if cell is occupied by a pedestrian in current discrete state.
+   * {@code true} if cell is occupied by a pedestrian in current discrete state. Has same layout as grids of
+   * scenario.
+   */
+  protected BitGrid occupied;
+  /**
+   * {@code true} if cell will be occupied by a pedestrian in next discrete state. Has same layout as grids of
+   * scenario.
+   */
+  protected BitGrid occupiedNextState;
+  /**
+   * Difference between index of neighbour in each direction of neighbourhood and index of cell, in grids of
+   * scenario.
+   */
+  protected final int[] cellOffsets;
+  /**
+   * Number of reachable cells in neighbourhood of each cell in current discrete state, indexed as grids of
+   * scenario. Updated incrementally as pedestrians move.
+   */
+  protected final byte[] numberOfReachableNeighbours;
+  /**
+   * Cells whose occupancy changes when moving to next discrete state. Newly occupied cells are stored as their
+   * index and vacated ones as bitwise complement of their index.
    */
-  protected boolean[][] occupied;
+  private int[] occupancyChanges;
+  private int numberOfOccupancyChanges;
   /**
-   * {@code true} if cell will be occupied by a pedestrian in next discrete state.
+   * Evaluates desirability of moving to a cell for pedestrians in this automaton.
    */
-  protected boolean[][] occupiedNextState;
+  protected final DesirabilityEvaluator desirabilityEvaluator;
+  /**
+   * Scratch sampler for choosing movements of pedestrians in this automaton.
+   */
+  protected final MovementSampler movementSampler;
   /**
    * Factory for generating pedestrians for this automaton.
    */
@@ -63,6 +99,16 @@ public class CellularAutomaton {
    * Number of discrete time steps elapsed since the start of the simulation.
    */
   protected int timeSteps;
+  /**
+   * Random generator used by this automaton and its pedestrians. It is split from a new generator seeded from
+   * parameters, so that it is not shared with any other automaton, and automata built from same parameters get
+   * same stream.
+   */
+  protected final RandomGenerator.SplittableGenerator random;
+  /**
+   * Destination receiving a snapshot of pedestrians before each time step, or {@code null} if there is none.
+   */
+  protected TraceSink traceSink;
 
   /**
    * Creates a new Cellular Automaton with provided parameters.
@@ -73,8 +119,24 @@ public class CellularAutomaton {
     this.parameters = parameters;
     this.scenario = parameters.scenario();
     this.neighbourhood = parameters.neighbourhood();
-    this.occupied = new boolean[scenario.getRows()][scenario.getColumns()];
-    this.occupiedNextState = new boolean[scenario.getRows()][scenario.getColumns()];
+    this.random = parameters.randomGenerator().split();
+    // only cells occupied by pedestrians are cleared in each time step, so that cost of a time step does not depend
+    // on area of scenario
+    this.occupied = new JournaledBitGrid(scenario.getRows(), scenario.getColumns(), false);
+    this.occupiedNextState = new JournaledBitGrid(scenario.getRows(), scenario.getColumns(), false);
+    this.cellOffsets = new int[neighbourhood.numberOfDirections()];
+    for (int direction = 0; direction < cellOffsets.length; direction++) {
+      // border of sentinel cells is one cell wide
+      assert Math.abs(neighbourhood.rowOffset(direction)) <= 1 && Math.abs(neighbourhood.columnOffset(direction)) <= 1
+          : "CellularAutomaton: neighbourhood offsets should be -1, 0 or 1";
+      cellOffsets[direction] = neighbourhood.rowOffset(direction) * occupied.stride()
+          + neighbourhood.columnOffset(direction);
+    }
+    this.numberOfReachableNeighbours = new byte[occupied.size()];
+    this.occupancyChanges = new int[16];
+    this.desirabilityEvaluator = new DesirabilityEvaluator(scenario.getStaticFloorField(), scenario.getBlockedGrid()
+        , neighbourhood.numberOfDirections(), parameters.desirabilityTables());
+    this.movementSampler = new MovementSampler();
     this.pedestrianFactory = new PedestrianFactory(this);
 
     this.inScenarioPedestrians = Collections.synchronizedList(new ArrayList<>());
@@ -82,10 +144,8 @@ public class CellularAutomaton {
     reset();
   }
 
-  private void clearCells(boolean[][] cells) {
-    for (var row : cells) {
-      Arrays.fill(row, false);
-    }
+  protected static void clearCells(BitGrid cells) {
+    cells.clear();
   }
 
   /**
@@ -94,6 +154,13 @@ public class CellularAutomaton {
    */
   public void reset() {
     clearCells(occupied);
+    for (int row = 0; row < getRows(); row++) {
+      for (int column = 0; column < getColumns(); column++) {
+        var cell = occupied.index(row, column);
+        numberOfReachableNeighbours[cell] = (byte) countReachableNeighbours(cell);
+      }
+    }
+    numberOfOccupancyChanges = 0;
     inScenarioPedestrians.clear();
     outOfScenarioPedestrians.clear();
     timeSteps = 0;
@@ -130,7 +197,7 @@ public class CellularAutomaton {
     assert column >= 0 && column < getColumns() : "addPedestrian: invalid column";
     if (isCellReachable(row, column)) {
       var pedestrian = pedestrianFactory.getInstance(row, column, parameters);
-      occupied[row][column] = true;
+      occupy(occupied.index(row, column));
       inScenarioPedestrians.add(pedestrian);
       return true;
     } else {
@@ -178,6 +245,44 @@ public class CellularAutomaton {
     }
   }
 
+  /**
+   * Random generator used by this automaton and its pedestrians. Independent substreams (e.g. one for each worker
+   * thread) can be derived from it by splitting it.
+   *
+   * @return random generator used by this automaton and its pedestrians.
+   */
+  public RandomGenerator.SplittableGenerator getRandomGenerator() {
+    return random;
+  }
+
+  /**
+   * Neighbourhood relationship used by this automaton.
+   *
+   * @return neighbourhood relationship used by this automaton.
+   */
+  public Neighbourhood getNeighbourhood() {
+    return neighbourhood;
+  }
+
+  /**
+   * Evaluator of desirability of moving to a cell for pedestrians in this automaton.
+   *
+   * @return evaluator of desirability of moving to a cell for pedestrians in this automaton.
+   */
+  public DesirabilityEvaluator getDesirabilityEvaluator() {
+    return desirabilityEvaluator;
+  }
+
+  /**
+   * Scratch sampler for choosing movements of pedestrians in this automaton. It is reused for every movement, so it
+   * should only be used by thread running this automaton.
+   *
+   * @return scratch sampler for choosing movements of pedestrians in this automaton.
+   */
+  public MovementSampler getMovementSampler() {
+    return movementSampler;
+  }
+
   /**
    * Returns neighbours of a cell in this automaton (will depend on neighbourhood relationship).
    *
@@ -201,6 +306,92 @@ public class CellularAutomaton {
     return neighbours(location.row(), location.column());
   }
 
+  /**
+   * Counts reachable cells in neighbourhood of a cell in current discrete state.
+   *
+   * @param cell index of cell in grids of scenario.
+   * @return number of reachable cells in neighbourhood of cell.
+   */
+  protected int countReachableNeighbours(int cell) {
+    var numberOfReachable = 0;
+    for (var cellOffset : cellOffsets) {
+      var neighbour = cell + cellOffset;
+      if (!occupied.get(neighbour) && !scenario.getBlockedGrid().get(neighbour)) {
+        numberOfReachable++;
+      }
+    }
+    return numberOfReachable;
+  }
+
+  /**
+   * Updates number of reachable neighbours of cells having a given cell in their neighbourhood, after such cell
+   * became reachable or not reachable.
+   *
+   * @param cell      index of cell in grids of scenario.
+   * @param increment 1 if cell became reachable or -1 if it is not reachable any longer.
+   */
+  private void updateReachableNeighbours(int cell, int increment) {
+    for (var cellOffset : cellOffsets) {
+      numberOfReachableNeighbours[cell - cellOffset] += (byte) increment;
+    }
+  }
+
+  /**
+   * Marks a cell as occupied in current discrete state.
+   *
+   * @param cell index of cell in grids of scenario.
+   */
+  protected void occupy(int cell) {
+    occupied.set(cell);
+    updateReachableNeighbours(cell, -1);
+  }
+
+  /**
+   * Records that occupancy of a cell changes when moving to next discrete state, so that number of reachable
+   * neighbours can be updated afterwards.
+   *
+   * @param cell       index of cell in grids of scenario.
+   * @param isOccupied {@code true} if cell becomes occupied or {@code false} if it is vacated.
+   */
+  protected void changeOccupancy(int cell, boolean isOccupied) {
+    if (numberOfOccupancyChanges == occupancyChanges.length) {
+      occupancyChanges = Arrays.copyOf(occupancyChanges, 2 * occupancyChanges.length);
+    }
+    occupancyChanges[numberOfOccupancyChanges++] = isOccupied ? cell : ~cell;
+  }
+
+  /**
+   * Updates number of reachable neighbours with changes of occupancy recorded during a time step. Must be called
+   * once next discrete state becomes current one.
+   */
+  protected void applyOccupancyChanges() {
+    for (int i = 0; i < numberOfOccupancyChanges; i++) {
+      var change = occupancyChanges[i];
+      if (change >= 0) {
+        updateReachableNeighbours(change, -1);
+      } else {
+        updateReachableNeighbours(~change, +1);
+      }
+    }
+    numberOfOccupancyChanges = 0;
+  }
+
+  /**
+   * Number of reachable cells in neighbourhood of a cell in current discrete state. This is a constant time lookup.
+   *
+   * @param row    vertical coordinate of cell.
+   * @param column horizontal coordinate of cell.
+   * @return number of reachable cells in neighbourhood of cell.
+   */
+  public int numberOfReachableNeighbours(int row, int column) {
+    assert row >= 0 && row < getRows() : "numberOfReachableNeighbours: invalid row";
+    assert column >= 0 && column < getColumns() : "numberOfReachableNeighbours: invalid column";
+    var cell = occupied.index(row, column);
+    assert numberOfReachableNeighbours[cell] == countReachableNeighbours(cell)
+        : "numberOfReachableNeighbours: cached number differs from actual one";
+    return numberOfReachableNeighbours[cell];
+  }
+
   /**
    * Checks whether a cell is occupied by some pedestrian.
    *
@@ -211,7 +402,7 @@ public class CellularAutomaton {
   public boolean isCellOccupied(int row, int column) {
     assert row >= 0 && row < getRows() : "isCellOccupied: invalid row";
     assert column >= 0 && column < getColumns() : "isCellOccupied: invalid column";
-    return occupied[row][column];
+    return occupied.get(row, column);
   }
 
   /**
@@ -235,7 +426,7 @@ public class CellularAutomaton {
   public boolean isCellReachable(int row, int column) {
     assert row >= 0 && row < getRows() : "isCellReachable: invalid row";
     assert column >= 0 && column < getColumns() : "isCellReachable: invalid column";
-    return !occupied[row][column] && !scenario.isBlocked(row, column);
+    return !occupied.get(row, column) && !scenario.isBlocked(row, column);
   }
 
   /**
@@ -260,7 +451,7 @@ public class CellularAutomaton {
   public boolean willBeOccupied(int row, int column) {
     assert row >= 0 && row < getRows() : "willBeOccupied: invalid row";
     assert column >= 0 && column < getColumns() : "willBeOccupied: invalid column";
-    return occupiedNextState[row][column];
+    return occupiedNextState.get(row, column);
   }
 
   /**
@@ -274,6 +465,15 @@ public class CellularAutomaton {
     return willBeOccupied(location.row(), location.column());
   }
 
+  /**
+   * Parameters describing this automaton.
+   *
+   * @return parameters describing this automaton.
+   */
+  public CellularAutomatonParameters getParameters() {
+    return parameters;
+  }
+
   /**
    * Scenario where automaton is running.
    *
@@ -283,17 +483,85 @@ public class CellularAutomaton {
     return scenario;
   }
 
+  /**
+   * Randomly permutes a list by using Fisher-Yates algorithm, drawing same random numbers as
+   * {@link Collections#shuffle(List, java.util.Random)} would draw from this automaton's generator. Other automata
+   * reproducing trajectories of this one, such as {@link AllocationFreeCellularAutomaton}, must draw same numbers.
+   *
+   * @param list list to shuffle.
+   */
+  protected void shuffle(List<?> list) {
+    for (int i = list.size(); i > 1; i--) {
+      Collections.swap(list, i - 1, random.nextInt(i));
+    }
+  }
+
+  /**
+   * Sets destination receiving a snapshot of pedestrians before each subsequent time step, so that trace of
+   * simulation is written as it runs. Closing the sink is responsibility of caller.
+   *
+   * @param traceSink destination for snapshots, or {@code null} to stop sending them.
+   */
+  public void setTraceSink(TraceSink traceSink) {
+    if (traceSink != null) {
+      try {
+        traceSink.begin(scenario.getCellDimension());
+      } catch (IOException e) {
+        throw new UncheckedIOException("setTraceSink: could not write trace", e);
+      }
+    }
+    this.traceSink = traceSink;
+  }
+
+  /**
+   * Pedestrians currently within the scenario, as sent to trace sink.
+   *
+   * @return pedestrians currently within the scenario.
+   */
+  protected TraceSink.Crowd crowd() {
+    var pedestrians = new ArrayList<>(inScenarioPedestrians);
+    pedestrians.sort(Comparator.comparing(Pedestrian::getIdentifier));
+    return new TraceSink.Crowd() {
+      @Override
+      public int size() {
+        return pedestrians.size();
+      }
+
+      @Override
+      public void forEach(TraceSink.PedestrianConsumer consumer) {
+        for (var pedestrian : pedestrians) {
+          consumer.accept(pedestrian.getIdentifier(), pedestrian.getRow(), pedestrian.getColumn());
+        }
+      }
+    };
+  }
+
+  /**
+   * Sends current state to trace sink, if there is one. Should be called at the start of each time step.
+   */
+  protected void writeSnapshot() {
+    if (traceSink != null) {
+      try {
+        traceSink.snapshot(timeSteps, crowd());
+      } catch (IOException e) {
+        throw new UncheckedIOException("timeStep: could not write trace", e);
+      }
+    }
+  }
+
   /**
    * Runs one discrete time step for this automaton.
    */
   public void timeStep() {
+    writeSnapshot();
+
     // clear new state
     clearCells(occupiedNextState);
 
     // move each pedestrian
     synchronized (inScenarioPedestrians) {
       // in order to process pedestrians in random order
-      random.shuffle(inScenarioPedestrians);
+      shuffle(inScenarioPedestrians);
 
       var pedestriansIterator = inScenarioPedestrians.iterator();
       while (pedestriansIterator.hasNext()) {
@@ -306,22 +574,25 @@ public class CellularAutomaton {
           pedestrian.setExitTimeSteps(timeSteps);
           outOfScenarioPedestrians.add(pedestrian);
           pedestriansIterator.remove();
+          changeOccupancy(occupied.index(row, column), false);
         } else {
           pedestrian.chooseMovement().ifPresentOrElse(
               location -> {
                 if (willBeOccupied(location)) {
                   // new location already taken by another pedestrian. Don't move
-                  occupiedNextState[row][column] = true;
+                  occupiedNextState.set(row, column, true);
                   pedestrian.doNotMove();
                 } else {
                   // move to new location
-                  occupiedNextState[location.row()][location.column()] = true;
+                  occupiedNextState.set(location.row(), location.column(), true);
+                  changeOccupancy(occupied.index(row, column), false);
+                  changeOccupancy(occupied.index(location.row(), location.column()), true);
                   pedestrian.moveTo(location);
                 }
               },
               // no new location to consider. Don't move
               () -> {
-                occupiedNextState[row][column] = true;
+                occupiedNextState.set(row, column, true);
                 pedestrian.doNotMove();
               }
           );
@@ -332,94 +603,164 @@ public class CellularAutomaton {
     var temp = occupied;
     occupied = occupiedNextState;
     occupiedNextState = temp;
+    applyOccupancyChanges();
 
     timeSteps++;
   }
 
   /**
-   * Thread for running the simulation.
+   * Maximal number of discrete time steps a simulation can run, given by time limit in parameters. Last time step may
+   * end after time limit if it is not a multiple of time per tick.
+   *
+   * @return maximal number of discrete time steps a simulation can run.
    */
-  private class RunThread extends Thread {
-    final Canvas canvas;
+  public int maximalTimeSteps() {
+    return (int) Math.ceil(parameters.timeLimit() / parameters.timePerTick());
+  }
+
+  /**
+   * Number of discrete time steps elapsed since the start of the simulation.
+   *
+   * @return number of discrete time steps elapsed since the start of the simulation.
+   */
+  public int getTimeSteps() {
+    return timeSteps;
+  }
 
-    public RunThread(Canvas canvas) {
-      this.canvas = canvas;
+  /**
+   * Checks whether end conditions of simulation are met, i.e. all pedestrians have evacuated or time limit has been
+   * reached.
+   *
+   * @return {@code true} if no more time steps should be run.
+   */
+  public boolean isFinished() {
+    return numberOfNonEvacuees() == 0 || timeSteps >= maximalTimeSteps();
+  }
+
+  /**
+   * Current state of this automaton.
+   *
+   * @return current state of this automaton.
+   */
+  public TickState tickState() {
+    return new TickState(timeSteps, timeSteps * parameters.timePerTick(), numberOfEvacuees(), numberOfNonEvacuees());
+  }
+
+  /**
+   * Runs a number of time steps in calling thread, stopping earlier if end conditions are met. Static floor field of
+   * scenario is computed first if no automaton sharing such scenario has done it yet. Unlike {@link #simulate()},
+   * elapsed time steps are not reset, so a simulation can be run in several calls.
+   *
+   * @param numberOfTimeSteps maximal number of time steps to run.
+   * @return number of time steps that were run.
+   */
+  public int step(int numberOfTimeSteps) {
+    if (numberOfTimeSteps < 0) {
+      throw new IllegalArgumentException("step: number of time steps cannot be negative");
+    }
+    scenario.getStaticFloorField().initialize();
+    var numberOfRunTimeSteps = 0;
+    while (numberOfRunTimeSteps < numberOfTimeSteps && !isFinished()) {
+      timeStep();
+      numberOfRunTimeSteps++;
     }
+    return numberOfRunTimeSteps;
+  }
 
-    public void run() {
-      scenario.getStaticFloorField().initialize();
-      timeSteps = 0;
-      var maximalTimeSteps = parameters.timeLimit() / parameters.timePerTick();
-
-      if (canvas != null) {
-        // show initial configuration for 1.5 seconds
-        canvas.update();
-        try {
-          Thread.sleep(1500);
-        } catch (Exception ignored) {
-        }
+  /**
+   * Runs time steps in calling thread until a condition holds or end conditions are met. Condition is checked before
+   * each time step, so no time step is run if it already holds. Elapsed time steps are not reset.
+   *
+   * @param condition condition on this automaton for stopping the simulation.
+   * @return number of time steps that were run.
+   */
+  public int runUntil(Predicate<? super CellularAutomaton> condition) {
+    Objects.requireNonNull(condition, "runUntil: condition cannot be null");
+    scenario.getStaticFloorField().initialize();
+    var numberOfRunTimeSteps = 0;
+    while (!isFinished() && !condition.test(this)) {
+      timeStep();
+      numberOfRunTimeSteps++;
+    }
+    return numberOfRunTimeSteps;
+  }
+
+  /**
+   * Iterator running this automaton one time step at a time, in thread calling {@link Iterator#next()}, and returning
+   * its state after each time step. It has no more elements once end conditions are met. Elapsed time steps are not
+   * reset.
+   *
+   * @return iterator over states of this automaton after each time step.
+   */
+  public Iterator<TickState> ticks() {
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !isFinished();
       }
 
-      var millisBefore = System.currentTimeMillis();
-      while (!inScenarioPedestrians.isEmpty() && timeSteps < maximalTimeSteps) {
-        timeStep();
-        if (canvas != null) {
-          canvas.update();
-          var elapsedMillis = (System.currentTimeMillis() - millisBefore);
-          try {
-            // wait some milliseconds to synchronize animation
-            Thread.sleep(((int) (parameters.timePerTick() * 1000) - elapsedMillis) / parameters.GUITimeFactor());
-            millisBefore = System.currentTimeMillis();
-          } catch (Exception ignored) {
-          }
+      @Override
+      public TickState next() {
+        if (step(1) == 0) {
+          throw new NoSuchElementException("ticks: simulation has finished");
         }
+        return tickState();
       }
-      if (canvas != null) {
-        // show final configuration
-        canvas.update();
-      }
-    }
+    };
   }
 
   /**
-   * Runs this automaton until end conditions are met.
-   *
-   * @param gui if this parameter is {@code true} the simulation is displayed in a GUI.
+   * Runs this automaton in calling thread until end conditions are met. Static floor field of scenario is computed
+   * when first automaton sharing such scenario is run, so that several automata can concurrently share a scenario.
    */
-  private void run(boolean gui) {
-    Canvas canvas = null;
-    if (gui) {
-      canvas =
-          new Canvas.Builder()
-              .rows(scenario.getRows())
-              .columns(scenario.getColumns())
-              .pixelsPerCell(10)
-              .paint(CellularAutomaton.this::paint)
-              .build();
-
-      new Frame(canvas);
-    }
-    var thread = new RunThread(canvas);
-    thread.start();
-    try {
-      thread.join(); // wait for thread to complete
-    } catch (InterruptedException e) {
-      System.out.println("Interrupted!");
-    }
+  public void simulate() {
+    timeSteps = 0;
+    runUntil(automaton -> false);
   }
 
   /**
-   * Runs this automaton until end conditions are met.
+   * Runs this automaton until end conditions are met, without displaying it.
    */
   public void run() {
-    run(false);
+    simulate();
   }
 
   /**
-   * Runs this automaton until end conditions are met and displays simulation in a GUI.
+   * Runs this automaton until end conditions are met and displays simulation in a GUI. Time steps are paced so that
+   * animation runs at {@link CellularAutomatonParameters#GUITimeFactor()} times real speed.
    */
   public void runGUI() {
-    run(true);
+    var canvas =
+        new Canvas.Builder()
+            .rows(scenario.getRows())
+            .columns(scenario.getColumns())
+            .pixelsPerCell(10)
+            .paint(CellularAutomaton.this::paint)
+            .build();
+    new Frame(canvas);
+
+    timeSteps = 0;
+    scenario.getStaticFloorField().initialize();
+    // show initial configuration for 1.5 seconds
+    canvas.update();
+    try {
+      Thread.sleep(1500);
+    } catch (Exception ignored) {
+    }
+
+    var millisBefore = System.currentTimeMillis();
+    while (step(1) > 0) {
+      canvas.update();
+      var elapsedMillis = (System.currentTimeMillis() - millisBefore);
+      try {
+        // wait some milliseconds to synchronize animation
+        Thread.sleep(((int) (parameters.timePerTick() * 1000) - elapsedMillis) / parameters.GUITimeFactor());
+        millisBefore = System.currentTimeMillis();
+      } catch (Exception ignored) {
+      }
+    }
+    // show final configuration
+    canvas.update();
   }
 
   /**
@@ -504,13 +845,10 @@ public class CellularAutomaton {
 
     return new Statistics(meanSteps, meanEvacuationTime
         , medianSteps, medianEvacuationTime
-        , numberOfEvacuees, numberOfNonEvacuees);
+        , numberOfEvacuees, numberOfNonEvacuees
+        , scenario.getStaticFloorField().getInitializationTime());
   }
 
-  private static final Color
-      darkBlue = new Color(0, 71, 189),
-      lightBlue = new Color(0, 120, 227);
-
   /**
    * Paints this automaton in GUI representing the simulation.
    *
@@ -520,7 +858,7 @@ public class CellularAutomaton {
     scenario.paint(canvas);
     synchronized (inScenarioPedestrians) {
       for (var pedestrian : inScenarioPedestrians) {
-        pedestrian.paint(canvas, lightBlue, darkBlue);
+        pedestrian.paint(canvas, Palette.PEDESTRIAN_FILL, Palette.PEDESTRIAN_OUTLINE);
       }
     }
   }
@@ -531,42 +869,53 @@ public class CellularAutomaton {
    * @return Trace of all pedestrians through the scenario.
    */
   public Trace getTrace() {
-    var domain = 1; // todo currently there is only a single domain
-
-    var snapshots = new Snapshot[timeSteps];
-
     List<Pedestrian> allPedestrians = new ArrayList<>();
     allPedestrians.addAll(inScenarioPedestrians);
     allPedestrians.addAll(outOfScenarioPedestrians);
     allPedestrians.sort(Comparator.comparing(Pedestrian::getIdentifier));
 
-    // Create snapshots
-    for (int t = 0; t < timeSteps; t++) {
-      var crowd = getPedestrians(allPedestrians, t, domain);
-      snapshots[t] = new Snapshot(t, crowd);
-    }
-
-    return new Trace(scenario.getCellDimension(), snapshots);
+    return getTrace(allPedestrians.size(), i -> allPedestrians.get(i).getIdentifier()
+        , i -> allPedestrians.get(i).getTrajectory());
   }
 
-  private es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian[] getPedestrians(List<Pedestrian> allPedestrians, int t, int domain) {
-    var crowd = new ArrayList<es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian>();
-
+  /**
+   * Builds trace of pedestrians from their trajectories. Each trajectory is decoded only once.
+   *
+   * @param numberOfPedestrians number of pedestrians in trace.
+   * @param identifier          identifier of {@code i}-th pedestrian. Should be increasing in {@code i}.
+   * @param trajectory          trajectory followed by {@code i}-th pedestrian.
+   * @return Trace of all pedestrians through the scenario.
+   */
+  protected Trace getTrace(int numberOfPedestrians, IntUnaryOperator identifier
+      , IntFunction<Trajectory> trajectory) {
+    var domain = 1; // todo currently there is only a single domain
     var cellDimension = scenario.getCellDimension();
-    for (var pedestrian : allPedestrians) {
-      var path = pedestrian.getPath();
-      if (path.size() > t) {
-        var location = path.get(t);
-        crowd.add(new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian(
-            pedestrian.getIdentifier()
-            , new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Location(
-                domain
-                , new Coordinates(location.column() * cellDimension + cellDimension / 2
-                    , location.row() * cellDimension + cellDimension / 2))));
-      }
+
+    var crowds = new ArrayList<List<es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian>>(timeSteps);
+    for (int t = 0; t < timeSteps; t++) {
+      crowds.add(new ArrayList<>());
+    }
+    for (int i = 0; i < numberOfPedestrians; i++) {
+      var pedestrianIdentifier = identifier.applyAsInt(i);
+      trajectory.apply(i).forEach((t, row, column) -> {
+        if (t < timeSteps) {
+          crowds.get(t).add(new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian(
+              pedestrianIdentifier
+              , new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Location(
+                  domain
+                  , new Coordinates(column * cellDimension + cellDimension / 2
+                      , row * cellDimension + cellDimension / 2))));
+        }
+      });
     }
-    return crowd.toArray(new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian[0]);
-  }
-}
 
+    // Create snapshots
+    var snapshots = new Snapshot[timeSteps];
+    for (int t = 0; t < timeSteps; t++) {
+      snapshots[t] = new Snapshot(t, crowds.get(t).toArray(
+          new es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian[0]));
+    }
 
+    return new Trace(cellDimension, snapshots);
+  }
+}
@@ -3,8 +3,16 @@ package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.au
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.Neighbourhood;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.VonNeumannNeighbourhood;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory.ArrayTrajectory;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory.Trajectory;
 
+import java.util.SplittableRandom;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import static es.uma.lcc.caesium.statistics.Random.random;
 
 /**
  * Class representing parameters for a cellular automaton.
@@ -14,6 +22,12 @@ import java.util.function.Function;
  * @param timeLimit     Time limit of simulation in seconds.
  * @param timePerTick   Seconds of time elapsed for each tick of simulation.
  * @param GUITimeFactor Acceleration for rendering animation wrt real time.
+ * @param randomGeneratorFactory Creates sources of randomness of chosen splittable algorithm from a seed.
+ * @param seed          Seed for source of randomness. Every automaton built from these parameters gets the same
+ *                      random stream, so that simulations are reproducible.
+ * @param trajectorySupplier Creates an empty trajectory for recording path followed by each pedestrian.
+ * @param desirabilityTables Maximum number of pedestrian profiles (distinct field attraction bias and crowd
+ *                           repulsion) whose attraction factors are tabulated for every cell.
  *
  * @author Pepe Gallardo
  */
@@ -23,8 +37,39 @@ public record CellularAutomatonParameters(
     , double timeLimit
     , double timePerTick
     , int GUITimeFactor
+    , RandomGeneratorFactory<RandomGenerator.SplittableGenerator> randomGeneratorFactory
+    , long seed
+    , Supplier<Trajectory> trajectorySupplier
+    , int desirabilityTables
 ) {
 
+  /**
+   * Name of algorithm used when none is chosen: SplitMix64, as implemented by {@link SplittableRandom}.
+   */
+  public static final String DEFAULT_RANDOM_ALGORITHM = "SplittableRandom";
+
+  /**
+   * Creates a new source of randomness from seed in these parameters. As a new generator is returned by each call,
+   * these parameters hold no mutable state and can be shared by automata built in different threads.
+   *
+   * @return a new source of randomness of algorithm in these parameters, seeded from these parameters.
+   */
+  public RandomGenerator.SplittableGenerator randomGenerator() {
+    return randomGeneratorFactory.create(seed);
+  }
+
+  /**
+   * Returns a copy of these parameters with a different seed for source of randomness. Algorithm of source of
+   * randomness is kept.
+   *
+   * @param seed new seed for source of randomness.
+   * @return a copy of these parameters with a different seed for source of randomness.
+   */
+  public CellularAutomatonParameters withSeed(long seed) {
+    return new CellularAutomatonParameters(scenario, neighbourhood, timeLimit, timePerTick, GUITimeFactor,
+        randomGeneratorFactory, seed, trajectorySupplier, desirabilityTables);
+  }
+
   /**
    * Classes for building cellular automaton parameters by providing each one.
    */
@@ -61,12 +106,19 @@ public record CellularAutomatonParameters(
     private Neighbourhood neighbourhood;
     private double timePerTick;
     private int GUITimeFactor;
+    private RandomGeneratorFactory<RandomGenerator.SplittableGenerator> randomGeneratorFactory;
+    private Long seed;
+    private Supplier<Trajectory> trajectorySupplier;
+    private int desirabilityTables;
 
     private BuilderWithScenarioWithTimeLimit(BuilderWithScenario builder) {
       this.scenario = builder.scenario;
       this.neighbourhood = VonNeumannNeighbourhood.of(scenario); // default neighbourhood
       this.timePerTick = 0.4; // default is 0.4 secs per tick
       this.GUITimeFactor = 20; // default GUI time is x20 faster
+      this.randomGeneratorFactory = splittableFactory(DEFAULT_RANDOM_ALGORITHM, "randomGenerator");
+      this.trajectorySupplier = ArrayTrajectory::new; // default trajectories store each location
+      this.desirabilityTables = 4; // default tabulates attraction for 4 pedestrian profiles
     }
 
     /**
@@ -108,8 +160,86 @@ public record CellularAutomatonParameters(
       return this;
     }
 
+    private static RandomGeneratorFactory<RandomGenerator.SplittableGenerator> splittableFactory(String algorithm
+        , String method) {
+      RandomGeneratorFactory<RandomGenerator.SplittableGenerator> factory;
+      try {
+        factory = RandomGeneratorFactory.of(algorithm);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(method + ": unknown random generator algorithm " + algorithm, e);
+      }
+      if (!factory.isSplittable()) {
+        throw new IllegalArgumentException(method + ": random generator algorithm " + algorithm
+            + " is not splittable");
+      }
+      return factory;
+    }
+
+    /**
+     * @param randomGenerator Generator whose algorithm is used for source of randomness and from which its seed is
+     *                        drawn once, when this method is called. Its algorithm must be one provided by
+     *                        {@link RandomGeneratorFactory}, as every automaton creates its own generator from seed.
+     *                        If neither this nor {@link #seed(long)} is provided, seed is drawn from global
+     *                        {@link es.uma.lcc.caesium.statistics.Random#random}.
+     */
+    public BuilderWithScenarioWithTimeLimit randomGenerator(RandomGenerator.SplittableGenerator randomGenerator) {
+      var factory = splittableFactory(randomGenerator.getClass().getSimpleName(), "randomGenerator");
+      if (factory.create(0L).getClass() != randomGenerator.getClass()) {
+        throw new IllegalArgumentException("randomGenerator: algorithm of " + randomGenerator.getClass().getName()
+            + " is not provided by RandomGeneratorFactory");
+      }
+      this.randomGeneratorFactory = factory;
+      this.seed = randomGenerator.nextLong();
+      return this;
+    }
+
+    /**
+     * @param algorithm Name of a splittable algorithm provided by {@link RandomGeneratorFactory} (e.g.
+     *                  {@code "L64X128MixRandom"}) for source of randomness. Default is
+     *                  {@link CellularAutomatonParameters#DEFAULT_RANDOM_ALGORITHM}.
+     */
+    public BuilderWithScenarioWithTimeLimit randomAlgorithm(String algorithm) {
+      this.randomGeneratorFactory = splittableFactory(algorithm, "randomAlgorithm");
+      return this;
+    }
+
+    /**
+     * @param seed Seed for source of randomness, so that simulation is reproducible. Source of randomness is a
+     *             SplitMix64 ({@link SplittableRandom}) generator unless another algorithm is chosen.
+     */
+    public BuilderWithScenarioWithTimeLimit seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * @param trajectorySupplier Creates an empty trajectory for recording path followed by each pedestrian (e.g.
+     *                           {@code DeltaEncodedTrajectory::new} for long simulations with many pedestrians).
+     */
+    public BuilderWithScenarioWithTimeLimit trajectory(Supplier<Trajectory> trajectorySupplier) {
+      this.trajectorySupplier = trajectorySupplier;
+      return this;
+    }
+
+    /**
+     * @param desirabilityTables Maximum number of pedestrian profiles (distinct field attraction bias and crowd
+     *                           repulsion) whose attraction factors are tabulated for every cell. Each table takes
+     *                           8 bytes per cell, so this should be lowered for very large scenarios. Other
+     *                           profiles compute attraction factors for each move.
+     */
+    public BuilderWithScenarioWithTimeLimit desirabilityTables(int desirabilityTables) {
+      this.desirabilityTables = desirabilityTables;
+      return this;
+    }
+
     public CellularAutomatonParameters build() {
-      return new CellularAutomatonParameters(scenario, neighbourhood, timeLimit, timePerTick, GUITimeFactor);
+      var seed = this.seed;
+      if (seed == null) {
+        // derived from global generator so that setting its seed still makes simulations reproducible
+        seed = ((long) random.nextInt(Integer.MAX_VALUE) << 32) ^ random.nextInt(Integer.MAX_VALUE);
+      }
+      return new CellularAutomatonParameters(scenario, neighbourhood, timeLimit, timePerTick, GUITimeFactor,
+          randomGeneratorFactory, seed, trajectorySupplier, desirabilityTables);
     }
   }
 }
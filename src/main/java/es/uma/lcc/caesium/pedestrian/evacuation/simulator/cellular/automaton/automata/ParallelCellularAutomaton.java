@@ -0,0 +1,144 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.MovementSampler;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianStore;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Cellular Automaton for simulating pedestrian evacuation whose time steps are run in two phases, so that large
+ * crowds are moved by several threads:
+ * <ol>
+ *   <li>After shuffling pedestrians, all of them choose their movements concurrently. Choices are only based on
+ *   current state of automaton, which is not modified during this phase. List of pedestrians is split into as many
+ *   contiguous parts as tasks, and each task chooses movements for pedestrians in its part by using its own random
+ *   stream.</li>
+ *   <li>Pedestrians are moved sequentially in shuffled order. When several pedestrians chose same cell, first one in
+ *   such order takes it and the other ones do not move.</li>
+ * </ol>
+ * Random streams of tasks are split from that of automaton when it is created, and each part only depends on number
+ * of pedestrians within the scenario and number of tasks. Hence, for a given seed and number of tasks, trajectories
+ * of pedestrians are reproducible and do not depend on scheduling of threads. They differ from those produced by
+ * {@link AllocationFreeCellularAutomaton}, as movements are chosen with different random streams.
+ * <p>
+ * Tasks are run in common fork-join pool.
+ */
+public class ParallelCellularAutomaton extends AllocationFreeCellularAutomaton {
+  /**
+   * Minimum number of pedestrians within the scenario for tasks to be run in parallel. Smaller crowds are moved
+   * faster by running tasks in calling thread. As tasks draw same numbers either way, results are not affected.
+   */
+  private static final int PARALLEL_THRESHOLD = 2048;
+
+  /**
+   * Number of tasks among which pedestrians are split for choosing their movements.
+   */
+  protected final int parallelism;
+  /**
+   * Random stream and scratch sampler for each task.
+   */
+  private final RandomGenerator[] taskRandom;
+  private final MovementSampler[] taskSampler;
+  /**
+   * Cell chosen by each pedestrian in current time step, by pedestrian slot, or -1 if it does not move.
+   */
+  protected int[] destination;
+
+  /**
+   * Creates a new parallel Cellular Automaton with provided parameters, whose pedestrians are split among as many
+   * tasks as available processors.
+   *
+   * @param parameters parameters describing this automaton.
+   */
+  public ParallelCellularAutomaton(CellularAutomatonParameters parameters) {
+    this(parameters, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new parallel Cellular Automaton with provided parameters.
+   *
+   * @param parameters  parameters describing this automaton.
+   * @param parallelism number of tasks among which pedestrians are split for choosing their movements.
+   */
+  public ParallelCellularAutomaton(CellularAutomatonParameters parameters, int parallelism) {
+    this(parameters, PedestrianStore.Removal.ORDERED, parallelism);
+  }
+
+  /**
+   * Creates a new parallel Cellular Automaton with provided parameters.
+   *
+   * @param parameters  parameters describing this automaton.
+   * @param removal     policy for removing pedestrians evacuating the scenario.
+   * @param parallelism number of tasks among which pedestrians are split for choosing their movements.
+   */
+  public ParallelCellularAutomaton(CellularAutomatonParameters parameters, PedestrianStore.Removal removal
+      , int parallelism) {
+    super(parameters, removal);
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("ParallelCellularAutomaton: parallelism should be larger than 0");
+    }
+    this.parallelism = parallelism;
+    this.taskRandom = new RandomGenerator[parallelism];
+    this.taskSampler = new MovementSampler[parallelism];
+    // streams are split sequentially, so that they are reproducible
+    for (int task = 0; task < parallelism; task++) {
+      taskRandom[task] = random.split();
+      taskSampler[task] = new MovementSampler();
+    }
+    this.destination = new int[0];
+  }
+
+  /**
+   * Runs given number of tasks and waits for all of them to complete. Tasks are run in parallel if crowd is large
+   * enough, or otherwise in calling thread.
+   *
+   * @param numberOfTasks number of tasks to run.
+   * @param task          task to run, given its index.
+   */
+  protected void runTasks(int numberOfTasks, IntConsumer task) {
+    var tasks = IntStream.range(0, numberOfTasks);
+    if (pedestrians.inScenarioLength() >= PARALLEL_THRESHOLD) {
+      tasks = tasks.parallel();
+    }
+    tasks.forEach(task);
+  }
+
+  /**
+   * Shuffles pedestrians within the scenario and then chooses their movements concurrently.
+   */
+  @Override
+  protected void prepareTimeStep() {
+    super.prepareTimeStep();
+
+    if (destination.length < pedestrians.size()) {
+      destination = Arrays.copyOf(destination, Math.max(pedestrians.size(), 2 * destination.length));
+    }
+    var numberOfPositions = pedestrians.inScenarioLength();
+    var positionsPerTask = (numberOfPositions + parallelism - 1) / parallelism;
+    runTasks(parallelism, task -> {
+      var random = taskRandom[task];
+      var sampler = taskSampler[task];
+      var end = Math.min(numberOfPositions, (task + 1) * positionsPerTask);
+      for (int position = task * positionsPerTask; position < end; position++) {
+        var pedestrian = pedestrians.inScenario(position);
+        if (!scenario.isExit(pedestrians.row(pedestrian), pedestrians.column(pedestrian))) {
+          destination[pedestrian] = chooseMovement(pedestrian, random, sampler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Movement chosen for a pedestrian when time step was prepared.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @return index of chosen cell or -1 if pedestrian does not move.
+   */
+  @Override
+  protected int chooseMovement(int pedestrian) {
+    return destination[pedestrian];
+  }
+}
@@ -0,0 +1,173 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Class for running many independent replications of a simulation in parallel, as required by Monte Carlo studies.
+ * Replications are spread across a work-stealing pool of threads. All of them share the same scenario, whose static
+ * floor field is computed only once, by first replication that needs it.
+ * <p>
+ * Each replication gets its own random stream, seeded in order of replication from source of randomness in
+ * parameters. Hence, results of each replication only depend on such source and on its index, but not on the number
+ * of threads or on scheduling of replications.
+ */
+public class ReplicationRunner {
+  /**
+   * Parameters describing automaton used in every replication.
+   */
+  protected final CellularAutomatonParameters parameters;
+  /**
+   * Function creating a new automaton for each replication.
+   */
+  protected final Function<CellularAutomatonParameters, CellularAutomaton> buildAutomaton;
+  /**
+   * Places pedestrians in a newly created automaton before running a replication.
+   */
+  protected final Consumer<CellularAutomaton> populate;
+  /**
+   * Number of threads used for running replications.
+   */
+  protected final int parallelism;
+
+  /**
+   * Creates a new runner for replications.
+   *
+   * @param parameters     parameters describing automaton used in every replication.
+   * @param buildAutomaton function creating a new automaton for each replication.
+   * @param populate       places pedestrians in a newly created automaton before running a replication.
+   * @param parallelism    number of threads used for running replications.
+   */
+  public ReplicationRunner(CellularAutomatonParameters parameters
+      , Function<CellularAutomatonParameters, CellularAutomaton> buildAutomaton
+      , Consumer<CellularAutomaton> populate
+      , int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("ReplicationRunner: parallelism should be larger than 0");
+    }
+    this.parameters = parameters;
+    this.buildAutomaton = buildAutomaton;
+    this.populate = populate;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Runs a single replication.
+   *
+   * @param parameters parameters for replication, including its own random stream.
+   * @return statistics collected after running replication.
+   */
+  protected Statistics runReplication(CellularAutomatonParameters parameters) {
+    var automaton = buildAutomaton.apply(parameters);
+    populate.accept(automaton);
+    automaton.simulate();
+    return automaton.computeStatistics();
+  }
+
+  /**
+   * Runs given number of replications.
+   *
+   * @param numberOfReplications number of replications to run.
+   * @return statistics collected after each replication, in order of replication.
+   */
+  public List<Statistics> run(int numberOfReplications) {
+    if (numberOfReplications < 0) {
+      throw new IllegalArgumentException("run: number of replications cannot be negative");
+    }
+    // seeds are drawn sequentially in this thread, so that they are reproducible. Each replication creates its
+    // generator from its seed with same algorithm as source
+    var source = parameters.randomGenerator();
+    var replications = new ArrayList<Callable<Statistics>>(numberOfReplications);
+    for (int i = 0; i < numberOfReplications; i++) {
+      var replicationParameters = parameters.withSeed(source.nextLong());
+      replications.add(() -> runReplication(replicationParameters));
+    }
+
+    var pool = Executors.newWorkStealingPool(parallelism);
+    try {
+      var futures = pool.invokeAll(replications);
+      var statistics = new ArrayList<Statistics>(numberOfReplications);
+      for (var future : futures) {
+        statistics.add(future.get());
+      }
+      return statistics;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("run: interrupted while running replications", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("run: a replication failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs given number of replications and aggregates their statistics.
+   *
+   * @param numberOfReplications number of replications to run.
+   * @return aggregated statistics with 95% confidence intervals.
+   */
+  public AggregatedStatistics runAndAggregate(int numberOfReplications) {
+    return AggregatedStatistics.of(run(numberOfReplications));
+  }
+
+  /**
+   * Class for building a replication runner by providing its parameters.
+   */
+  public static final class Builder {
+    private CellularAutomatonParameters parameters;
+    private Function<CellularAutomatonParameters, CellularAutomaton> buildAutomaton = CellularAutomaton::new;
+    private Consumer<CellularAutomaton> populate = automaton -> {
+    };
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public Builder() {
+    }
+
+    /**
+     * @param parameters parameters describing automaton used in every replication.
+     */
+    public Builder parameters(CellularAutomatonParameters parameters) {
+      this.parameters = parameters;
+      return this;
+    }
+
+    /**
+     * @param buildAutomaton function creating a new automaton for each replication (e.g.
+     *                       {@code AllocationFreeCellularAutomaton::new}).
+     */
+    public Builder automaton(Function<CellularAutomatonParameters, CellularAutomaton> buildAutomaton) {
+      this.buildAutomaton = buildAutomaton;
+      return this;
+    }
+
+    /**
+     * @param populate places pedestrians in a newly created automaton before running a replication.
+     */
+    public Builder populate(Consumer<CellularAutomaton> populate) {
+      this.populate = populate;
+      return this;
+    }
+
+    /**
+     * @param parallelism number of threads used for running replications. Defaults to number of available
+     *                    processors.
+     */
+    public Builder parallelism(int parallelism) {
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    public ReplicationRunner build() {
+      if (parameters == null) {
+        throw new IllegalArgumentException("ReplicationRunner.Builder: parameters must be provided");
+      }
+      return new ReplicationRunner(parameters, buildAutomaton, populate, parallelism);
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianStore;
+
+import java.util.Arrays;
+
+/**
+ * Cellular Automaton for simulating pedestrian evacuation where slow pedestrians are scheduled rather than drawing
+ * whether they move at every time step. In {@link AllocationFreeCellularAutomaton}, a pedestrian tries to move at
+ * each time step with probability given by its velocity percent, so number of time steps until it next tries to move
+ * follows a geometric distribution. Here, such number is drawn directly when a pedestrian is processed, and
+ * pedestrians are kept in a timing wheel keyed by time step when they are due to try again. At each time step, only
+ * due pedestrians are shuffled and choose their movements, while remaining ones just stay in their cells.
+ * <p>
+ * As geometric distribution is memoryless, time steps at which pedestrians try to move follow same distribution as
+ * those in {@link AllocationFreeCellularAutomaton}, and due pedestrians are processed in uniformly random order, as
+ * are pedestrians moving in such automaton. Hence, movement statistics are the same, although trajectories differ for
+ * a given seed, as random numbers are drawn differently. Pedestrians located in an exit are always due at next time
+ * step, when they evacuate.
+ */
+public class ScheduledCellularAutomaton extends AllocationFreeCellularAutomaton {
+  private static final int LOG_WHEEL_SIZE = 6;
+  /**
+   * Number of buckets in timing wheel. Pedestrians due more than this number of time steps later share a bucket with
+   * ones due earlier, and are kept in it when such bucket is visited before they are due.
+   */
+  private static final int WHEEL_SIZE = 1 << LOG_WHEEL_SIZE;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  /**
+   * Largest number of time steps until a pedestrian next tries to move, so that time steps do not overflow.
+   */
+  private static final int MAX_WAIT = 1 << 30;
+
+  /**
+   * Slots of pedestrians in each bucket of timing wheel, and number of them.
+   */
+  private final int[][] wheel;
+  private final int[] wheelSize;
+  /**
+   * Time step at which each pedestrian, by slot, is next due.
+   */
+  private int[] dueTimeStep;
+  /**
+   * Natural logarithm of probability of not moving at a time step for each pedestrian, by slot.
+   */
+  private double[] logStayProbability;
+  /**
+   * Slots of pedestrians due at current time step, and number of them.
+   */
+  private int[] due;
+  private int numberOfDue;
+
+  /**
+   * Creates a new scheduled Cellular Automaton with provided parameters. Pedestrians evacuating the scenario are
+   * removed preserving order of remaining ones.
+   *
+   * @param parameters parameters describing this automaton.
+   */
+  public ScheduledCellularAutomaton(CellularAutomatonParameters parameters) {
+    this(parameters, PedestrianStore.Removal.ORDERED);
+  }
+
+  /**
+   * Creates a new scheduled Cellular Automaton with provided parameters.
+   *
+   * @param parameters parameters describing this automaton.
+   * @param removal    policy for removing pedestrians evacuating the scenario.
+   */
+  public ScheduledCellularAutomaton(CellularAutomatonParameters parameters, PedestrianStore.Removal removal) {
+    super(parameters, removal);
+    this.wheel = new int[WHEEL_SIZE][];
+    for (int bucket = 0; bucket < WHEEL_SIZE; bucket++) {
+      wheel[bucket] = new int[16];
+    }
+    this.wheelSize = new int[WHEEL_SIZE];
+    this.dueTimeStep = new int[16];
+    this.logStayProbability = new double[16];
+    this.due = new int[16];
+    this.numberOfDue = 0;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    // also called from superclass constructor, when wheel has not been created yet
+    if (wheelSize != null) {
+      Arrays.fill(wheelSize, 0);
+      numberOfDue = 0;
+    }
+  }
+
+  @Override
+  public boolean addPedestrian(int row, int column, PedestrianParameters parameters) {
+    if (!super.addPedestrian(row, column, parameters)) {
+      return false;
+    }
+    var pedestrian = pedestrians.size() - 1;
+    if (pedestrian >= dueTimeStep.length) {
+      dueTimeStep = Arrays.copyOf(dueTimeStep, 2 * dueTimeStep.length);
+      logStayProbability = Arrays.copyOf(logStayProbability, 2 * logStayProbability.length);
+    }
+    // negative infinity for pedestrians moving at maximum velocity, so that they always wait one time step
+    logStayProbability[pedestrian] = Math.log1p(-parameters.velocityPercent());
+    if (scenario.isExit(row, column)) {
+      schedule(pedestrian, timeSteps);
+    } else {
+      // first try is at current time step
+      schedule(pedestrian, timeSteps + waitingTimeSteps(pedestrian) - 1);
+    }
+    return true;
+  }
+
+  /**
+   * Draws number of time steps until a pedestrian next tries to move, from a geometric distribution whose
+   * probability of success is pedestrian's velocity percent. Uses inversion method, so a single random number is
+   * drawn.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @return number of time steps (at least 1) until pedestrian next tries to move.
+   */
+  private int waitingTimeSteps(int pedestrian) {
+    var failures = Math.floor(Math.log1p(-random.nextDouble()) / logStayProbability[pedestrian]);
+    return 1 + (int) Math.min(failures, MAX_WAIT);
+  }
+
+  /**
+   * Inserts a pedestrian in timing wheel.
+   *
+   * @param pedestrian slot of pedestrian.
+   * @param timeStep   time step at which pedestrian is due.
+   */
+  private void schedule(int pedestrian, int timeStep) {
+    dueTimeStep[pedestrian] = timeStep;
+    var bucket = timeStep & WHEEL_MASK;
+    if (wheelSize[bucket] == wheel[bucket].length) {
+      wheel[bucket] = Arrays.copyOf(wheel[bucket], 2 * wheel[bucket].length);
+    }
+    wheel[bucket][wheelSize[bucket]++] = pedestrian;
+  }
+
+  /**
+   * Takes pedestrians due at current time step out of timing wheel and shuffles them so that they are processed in
+   * random order.
+   */
+  @Override
+  protected void prepareTimeStep() {
+    if (due.length < pedestrians.size()) {
+      due = Arrays.copyOf(due, Math.max(pedestrians.size(), 2 * due.length));
+    }
+    var bucket = timeSteps & WHEEL_MASK;
+    var entries = wheel[bucket];
+    var numberOfRemaining = 0;
+    numberOfDue = 0;
+    for (int i = 0; i < wheelSize[bucket]; i++) {
+      var pedestrian = entries[i];
+      if (dueTimeStep[pedestrian] == timeSteps) {
+        due[numberOfDue++] = pedestrian;
+      } else {
+        // due at a later turn of wheel
+        entries[numberOfRemaining++] = pedestrian;
+      }
+    }
+    wheelSize[bucket] = numberOfRemaining;
+
+    for (int i = numberOfDue; i > 1; i--) {
+      var j = random.nextInt(i);
+      var temp = due[i - 1];
+      due[i - 1] = due[j];
+      due[j] = temp;
+    }
+  }
+
+  @Override
+  public void timeStep() {
+    writeSnapshot();
+
+    // clear new state
+    clearCells(occupiedNextState);
+
+    synchronized (this) {
+      prepareTimeStep();
+
+      for (int i = 0; i < numberOfDue; i++) {
+        var pedestrian = due[i];
+        var row = pedestrians.row(pedestrian);
+        var column = pedestrians.column(pedestrian);
+
+        if (scenario.isExit(row, column)) {
+          // pedestrian exits scenario. It is removed from list of pedestrians below
+          changeOccupancy(occupied.index(row, column), false);
+          continue;
+        }
+        var destination = chooseDestination(pedestrian, random, movementSampler);
+        // occupied cells are never chosen, so pedestrians staying in their cells do not compete for destination
+        if (destination >= 0 && !occupiedNextState.get(destination)) {
+          // move to new location
+          occupiedNextState.set(destination);
+          changeOccupancy(occupied.index(row, column), false);
+          changeOccupancy(destination, true);
+          row = occupied.row(destination);
+          column = occupied.column(destination);
+          pedestrians.moveTo(pedestrian, row, column);
+        }
+        if (scenario.isExit(row, column)) {
+          schedule(pedestrian, timeSteps + 1);
+        } else {
+          schedule(pedestrian, timeSteps + waitingTimeSteps(pedestrian));
+        }
+      }
+
+      var position = 0;
+      while (position < pedestrians.inScenarioLength()) {
+        var pedestrian = pedestrians.inScenario(position);
+        // due pedestrians which have not been scheduled again are those evacuating
+        if (dueTimeStep[pedestrian] == timeSteps) {
+          if (pedestrians.evacuate(position, timeSteps)) {
+            // another pedestrian took its position in list
+            continue;
+          }
+        } else {
+          occupiedNextState.set(pedestrians.row(pedestrian), pedestrians.column(pedestrian), true);
+          record(pedestrian);
+        }
+        position++;
+      }
+      pedestrians.compactInScenario();
+    }
+    // make next state current one
+    var temp = occupied;
+    occupied = occupiedNextState;
+    occupiedNextState = temp;
+    applyOccupancyChanges();
+
+    timeSteps++;
+  }
+}
@@ -3,12 +3,14 @@ package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.au
 /**
  * Class for collecting statistics after simulation.
  *
- * @param meanSteps            mean number of steps taken by evacuated pedestrians.
- * @param meanEvacuationTime   mean evacuation time for evacuated pedestrians.
- * @param medianSteps          median number of steps taken by evacuated pedestrians.
- * @param medianEvacuationTime median evacuation time for evacuated pedestrians.
- * @param numberOfEvacuees     number of pedestrians that could evacuate the scenario.
- * @param numberOfNonEvacuees  number of pedestrians that could not evacuate the scenario.
+ * @param meanSteps                    mean number of steps taken by evacuated pedestrians.
+ * @param meanEvacuationTime           mean evacuation time for evacuated pedestrians.
+ * @param medianSteps                  median number of steps taken by evacuated pedestrians.
+ * @param medianEvacuationTime         median evacuation time for evacuated pedestrians.
+ * @param numberOfEvacuees             number of pedestrians that could evacuate the scenario.
+ * @param numberOfNonEvacuees          number of pedestrians that could not evacuate the scenario.
+ * @param floorFieldInitializationTime time (in seconds) it took to compute static floor field of the scenario. As it
+ *                                     is only computed once, it is shared by all simulations on the same scenario.
  * @author Pepe Gallardo
  */
 public record Statistics(
@@ -17,5 +19,6 @@ public record Statistics(
     , double medianSteps
     , double medianEvacuationTime
     , int numberOfEvacuees
-    , int numberOfNonEvacuees) {
+    , int numberOfNonEvacuees
+    , double floorFieldInitializationTime) {
 }
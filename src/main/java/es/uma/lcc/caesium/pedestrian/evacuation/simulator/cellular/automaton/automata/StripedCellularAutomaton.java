@@ -0,0 +1,351 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.TiledBitGrid;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianStore;
+
+import java.util.Arrays;
+
+/**
+ * Cellular Automaton for simulating pedestrian evacuation on huge scenarios, whose grids are split into horizontal
+ * stripes so that moving pedestrians is also done by several threads. Movements are chosen concurrently as in
+ * {@link ParallelCellularAutomaton}. Afterwards, each stripe is owned by a task which:
+ * <ol>
+ *   <li>clears its part of occupancy grid for next state, and hands over movements of its pedestrians to stripe
+ *   owning chosen cell. As pedestrians move to adjacent cells, such stripe is either same one or a neighbouring one.
+ *   Movements handed over to each neighbour are kept in a buffer which is only read by such neighbour once all
+ *   tasks have completed this phase.</li>
+ *   <li>resolves movements to cells it owns, in shuffled order of pedestrians. First pedestrian choosing a cell takes
+ *   it and the other ones do not move.</li>
+ *   <li>moves its pedestrians.</li>
+ *   <li>once next state becomes current one, updates number of reachable neighbours of cells it owns, considering
+ *   changes of occupancy in its own stripe and in one-cell halo borders of neighbouring stripes.</li>
+ * </ol>
+ * Bounds of stripes are aligned to words of 64 bits in occupancy grids, so that no two tasks write to same word, and
+ * to bands of tiles (see {@link TiledBitGrid}), so that each task only clears active tiles in its stripe.
+ * Moving pedestrians yields same result as doing it sequentially in shuffled order, so that trajectories of
+ * pedestrians are the same as those produced by a {@link ParallelCellularAutomaton} with same parameters and
+ * parallelism, regardless of number of stripes.
+ */
+public class StripedCellularAutomaton extends ParallelCellularAutomaton {
+  /**
+   * Stripes of cells, from top to bottom of padded grids.
+   */
+  private final Stripe[] stripes;
+  /**
+   * Number of cells in each stripe (except possibly last one).
+   */
+  private final int cellsPerStripe;
+  /**
+   * Positions of evacuees in shuffled list of pedestrians in current time step.
+   */
+  private int[] evacuees;
+
+  /**
+   * Growable list of integers, reused among time steps.
+   */
+  private static final class IntList {
+    private int[] elements = new int[16];
+    private int size = 0;
+
+    void add(int element) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, 2 * elements.length);
+      }
+      elements[size++] = element;
+    }
+
+    int get(int index) {
+      return elements[index];
+    }
+
+    int size() {
+      return size;
+    }
+
+    void clear() {
+      size = 0;
+    }
+  }
+
+  /**
+   * A horizontal stripe of cells, owned by a task.
+   */
+  private static final class Stripe {
+    /**
+     * Range of indexes of cells in stripe.
+     */
+    final int fromIndex, toIndex;
+    /**
+     * Positions (in shuffled list) of pedestrians located in stripe, in increasing order.
+     */
+    final IntList pedestrians = new IntList();
+    /**
+     * Positions of pedestrians moving to cells in this stripe, or handed over to previous or next stripe, in
+     * increasing order.
+     */
+    final IntList movements = new IntList(), toPrevious = new IntList(), toNext = new IntList();
+    /**
+     * Positions of pedestrians evacuating from this stripe.
+     */
+    final IntList evacuees = new IntList();
+    /**
+     * Cells in stripe whose occupancy changes, as their index if they become occupied or its bitwise complement if
+     * they are vacated.
+     */
+    final IntList occupancyChanges = new IntList();
+
+    Stripe(int fromIndex, int toIndex) {
+      this.fromIndex = fromIndex;
+      this.toIndex = toIndex;
+    }
+  }
+
+  /**
+   * Creates a new striped Cellular Automaton with provided parameters, whose grids are split in as many stripes as
+   * available processors.
+   *
+   * @param parameters parameters describing this automaton.
+   */
+  public StripedCellularAutomaton(CellularAutomatonParameters parameters) {
+    this(parameters, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new striped Cellular Automaton with provided parameters.
+   *
+   * @param parameters  parameters describing this automaton.
+   * @param parallelism number of tasks among which pedestrians are split for choosing their movements, and number of
+   *                    stripes grids are split into. Fewer stripes are used if grids are not tall enough.
+   */
+  public StripedCellularAutomaton(CellularAutomatonParameters parameters, int parallelism) {
+    // pedestrians are evacuated after being moved, so relative order of remaining ones must be preserved
+    super(parameters, PedestrianStore.Removal.ORDERED, parallelism);
+    // journals of occupancy grids cannot be written concurrently, so active tiles in stripes are cleared instead
+    this.occupied = new TiledBitGrid(scenario.getRows(), scenario.getColumns(), false);
+    this.occupiedNextState = new TiledBitGrid(scenario.getRows(), scenario.getColumns(), false);
+
+    var stride = occupied.stride();
+    var paddedRows = scenario.getRows() + 2;
+    // rows whose first cell is aligned to a word repeat with this period
+    var alignedRowsPeriod = Long.SIZE / gcd(stride, Long.SIZE);
+    // stripes also start at bands of tiles. Both periods are powers of two, so the largest one is a multiple of the
+    // other one
+    alignedRowsPeriod = Math.max(alignedRowsPeriod, TiledBitGrid.TILE_SIZE);
+    var rowsPerStripe = (paddedRows + parallelism - 1) / parallelism;
+    rowsPerStripe = ((rowsPerStripe + alignedRowsPeriod - 1) / alignedRowsPeriod) * alignedRowsPeriod;
+    var numberOfStripes = (paddedRows + rowsPerStripe - 1) / rowsPerStripe;
+
+    this.cellsPerStripe = rowsPerStripe * stride;
+    this.stripes = new Stripe[numberOfStripes];
+    for (int stripe = 0; stripe < numberOfStripes; stripe++) {
+      var toIndex = Math.min(occupied.size(), (stripe + 1) * cellsPerStripe);
+      stripes[stripe] = new Stripe(stripe * cellsPerStripe, toIndex);
+    }
+    this.evacuees = new int[16];
+  }
+
+  private static int gcd(int a, int b) {
+    while (b != 0) {
+      var remainder = a % b;
+      a = b;
+      b = remainder;
+    }
+    return a;
+  }
+
+  /**
+   * Number of stripes grids are split into.
+   *
+   * @return number of stripes grids are split into.
+   */
+  public int numberOfStripes() {
+    return stripes.length;
+  }
+
+  private int stripeOf(int cell) {
+    return cell / cellsPerStripe;
+  }
+
+  @Override
+  public void timeStep() {
+    writeSnapshot();
+
+    synchronized (this) {
+      prepareTimeStep();
+
+      // distribute pedestrians among stripes, preserving shuffled order
+      for (var stripe : stripes) {
+        stripe.pedestrians.clear();
+      }
+      for (int position = 0; position < pedestrians.inScenarioLength(); position++) {
+        var pedestrian = pedestrians.inScenario(position);
+        var cell = occupied.index(pedestrians.row(pedestrian), pedestrians.column(pedestrian));
+        stripes[stripeOf(cell)].pedestrians.add(position);
+      }
+
+      runTasks(stripes.length, this::handOverMovements);
+      runTasks(stripes.length, this::resolveMovements);
+      runTasks(stripes.length, this::movePedestrians);
+
+      // evacuees are removed in shuffled order, as in a sequential time step
+      var numberOfEvacuees = 0;
+      for (var stripe : stripes) {
+        var length = numberOfEvacuees + stripe.evacuees.size();
+        if (length > evacuees.length) {
+          evacuees = Arrays.copyOf(evacuees, Math.max(2 * evacuees.length, length));
+        }
+        for (int i = 0; i < stripe.evacuees.size(); i++) {
+          evacuees[numberOfEvacuees++] = stripe.evacuees.get(i);
+        }
+      }
+      Arrays.sort(evacuees, 0, numberOfEvacuees);
+      for (int i = 0; i < numberOfEvacuees; i++) {
+        pedestrians.evacuate(evacuees[i], timeSteps);
+      }
+      pedestrians.compactInScenario();
+    }
+    // make next state current one
+    var temp = occupied;
+    occupied = occupiedNextState;
+    occupiedNextState = temp;
+    runTasks(stripes.length, this::applyOccupancyChanges);
+
+    timeSteps++;
+  }
+
+  /**
+   * First phase of moving pedestrians: clears part of occupancy grid for next state owned by a stripe, and hands
+   * over movements of its pedestrians to stripes owning chosen cells.
+   *
+   * @param index index of stripe.
+   */
+  private void handOverMovements(int index) {
+    var stripe = stripes[index];
+    occupiedNextState.clear(stripe.fromIndex, stripe.toIndex);
+    stripe.movements.clear();
+    stripe.toPrevious.clear();
+    stripe.toNext.clear();
+    stripe.evacuees.clear();
+    stripe.occupancyChanges.clear();
+
+    for (int i = 0; i < stripe.pedestrians.size(); i++) {
+      var position = stripe.pedestrians.get(i);
+      var pedestrian = pedestrians.inScenario(position);
+      var row = pedestrians.row(pedestrian);
+      var column = pedestrians.column(pedestrian);
+      if (scenario.isExit(row, column)) {
+        stripe.evacuees.add(position);
+        stripe.occupancyChanges.add(~occupied.index(row, column));
+      } else if (destination[pedestrian] >= 0) {
+        var owner = stripeOf(destination[pedestrian]);
+        assert Math.abs(owner - index) <= 1 : "handOverMovements: pedestrian moves beyond neighbouring stripe";
+        if (owner == index) {
+          stripe.movements.add(position);
+        } else if (owner < index) {
+          stripe.toPrevious.add(position);
+        } else {
+          stripe.toNext.add(position);
+        }
+      }
+    }
+  }
+
+  /**
+   * Second phase of moving pedestrians: resolves movements to cells owned by a stripe, in shuffled order of
+   * pedestrians. Pedestrians that cannot take chosen cell do not move.
+   *
+   * @param index index of stripe.
+   */
+  private void resolveMovements(int index) {
+    var stripe = stripes[index];
+    var own = stripe.movements;
+    var fromPrevious = index > 0 ? stripes[index - 1].toNext : null;
+    var fromNext = index < stripes.length - 1 ? stripes[index + 1].toPrevious : null;
+
+    // merge the three lists, which are already in increasing order of positions
+    int i = 0, j = 0, k = 0;
+    var ownSize = own.size();
+    var fromPreviousSize = fromPrevious == null ? 0 : fromPrevious.size();
+    var fromNextSize = fromNext == null ? 0 : fromNext.size();
+    while (i < ownSize || j < fromPreviousSize || k < fromNextSize) {
+      var position = Integer.MAX_VALUE;
+      if (i < ownSize) {
+        position = own.get(i);
+      }
+      if (j < fromPreviousSize && fromPrevious.get(j) < position) {
+        position = fromPrevious.get(j);
+      }
+      if (k < fromNextSize && fromNext.get(k) < position) {
+        position = fromNext.get(k);
+      }
+      if (i < ownSize && own.get(i) == position) {
+        i++;
+      } else if (j < fromPreviousSize && fromPrevious.get(j) == position) {
+        j++;
+      } else {
+        k++;
+      }
+
+      var pedestrian = pedestrians.inScenario(position);
+      var cell = destination[pedestrian];
+      if (occupiedNextState.get(cell)) {
+        // new location already taken by another pedestrian. Don't move
+        destination[pedestrian] = -1;
+      } else {
+        occupiedNextState.set(cell);
+        stripe.occupancyChanges.add(cell);
+      }
+    }
+  }
+
+  /**
+   * Third phase of moving pedestrians: moves pedestrians located in a stripe to cells they took, or keeps them in
+   * their current cells.
+   *
+   * @param index index of stripe.
+   */
+  private void movePedestrians(int index) {
+    var stripe = stripes[index];
+    for (int i = 0; i < stripe.pedestrians.size(); i++) {
+      var pedestrian = pedestrians.inScenario(stripe.pedestrians.get(i));
+      var row = pedestrians.row(pedestrian);
+      var column = pedestrians.column(pedestrian);
+      if (scenario.isExit(row, column)) {
+        continue;
+      }
+      var cell = occupied.index(row, column);
+      var newCell = destination[pedestrian];
+      if (newCell < 0) {
+        occupiedNextState.set(cell);
+      } else {
+        stripe.occupancyChanges.add(~cell);
+        pedestrians.moveTo(pedestrian, occupied.row(newCell), occupied.column(newCell));
+      }
+      record(pedestrian);
+    }
+  }
+
+  /**
+   * Updates number of reachable neighbours of cells owned by a stripe, with changes of occupancy in such stripe and
+   * in neighbouring ones, as cells in their halo borders are neighbours of cells in this stripe.
+   *
+   * @param index index of stripe.
+   */
+  private void applyOccupancyChanges(int index) {
+    var stripe = stripes[index];
+    for (int neighbour = Math.max(0, index - 1); neighbour <= Math.min(stripes.length - 1, index + 1); neighbour++) {
+      var changes = stripes[neighbour].occupancyChanges;
+      for (int i = 0; i < changes.size(); i++) {
+        var change = changes.get(i);
+        var cell = change >= 0 ? change : ~change;
+        var increment = change >= 0 ? -1 : +1;
+        for (var cellOffset : cellOffsets) {
+          var updated = cell - cellOffset;
+          if (updated >= stripe.fromIndex && updated < stripe.toIndex) {
+            numberOfReachableNeighbours[updated] += (byte) increment;
+          }
+        }
+      }
+    }
+  }
+}
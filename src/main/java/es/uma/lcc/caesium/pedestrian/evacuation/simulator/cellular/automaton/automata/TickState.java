@@ -0,0 +1,16 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+/**
+ * State of an automaton after running a discrete time step.
+ *
+ * @param timeSteps           number of discrete time steps elapsed since the start of the simulation.
+ * @param time                time (in seconds) elapsed since the start of the simulation.
+ * @param numberOfEvacuees    number of pedestrians that have evacuated the scenario.
+ * @param numberOfNonEvacuees number of pedestrians still within the scenario.
+ */
+public record TickState(
+    int timeSteps
+    , double time
+    , int numberOfEvacuees
+    , int numberOfNonEvacuees) {
+}
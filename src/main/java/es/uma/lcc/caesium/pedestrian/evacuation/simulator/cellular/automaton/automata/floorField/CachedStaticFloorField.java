@@ -0,0 +1,261 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Static floor field whose values are persistently cached on disk. Cache files are keyed by a content hash of the
+ * geometry of the scenario (its cells and exits) and of the type of floor field, so they can be reused across runs
+ * and are automatically ignored when geometry changes. Once a field has been cached, initializing it only takes
+ * hashing the scenario and memory-mapping its file, and values are read directly from mapped file. Floor field
+ * computing values is only built when they are not cached yet, so that its matrix is not allocated otherwise.
+ * <p>
+ * Cache is only an optimization: if it cannot be read or written, values are computed and served from memory, and
+ * failure can be queried with {@link #getCacheFailure()}.
+ */
+public class CachedStaticFloorField extends LazyFloorField {
+  private static final int MAGIC = 0x43414646; // "CAFF"
+  private static final int VERSION = 1;
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int DIGEST_LENGTH = 32;
+  /**
+   * Header holds magic, version, rows, columns and digest. Its size is a multiple of 8 so that values are aligned.
+   */
+  private static final int HEADER_SIZE = 4 * Integer.BYTES + DIGEST_LENGTH;
+
+  /**
+   * Type of floor field computing values when they are not cached yet. Its name keys cache files.
+   */
+  protected final StaticFloorFieldType type;
+  protected final Scenario scenario;
+  /**
+   * Directory where cache files are stored.
+   */
+  protected final Path directory;
+  /**
+   * Values mapped from cache file, or {@code null} if they are served by {@link #floorField}.
+   */
+  private DoubleBuffer field;
+  /**
+   * Floor field computing values, or {@code null} if they were found in cache.
+   */
+  private StaticFloorField floorField;
+  /**
+   * Error raised when accessing cache, or {@code null} if there was none.
+   */
+  private IOException cacheFailure;
+
+  /**
+   * Creates a new cached static floor field.
+   *
+   * @param type      type of floor field computing values when they are not cached yet (e.g.
+   *                  {@link DijkstraStaticFloorFieldWithMooreNeighbourhood#TYPE}). Its name keys cache files, so
+   *                  that different types of floor fields do not share them.
+   * @param scenario  scenario of floor field.
+   * @param directory directory where cache files are stored. It is created if it does not exist.
+   */
+  public CachedStaticFloorField(StaticFloorFieldType type, Scenario scenario, Path directory) {
+    this.type = type;
+    this.scenario = scenario;
+    this.directory = directory;
+    this.field = null;
+    this.floorField = null;
+    this.cacheFailure = null;
+  }
+
+  /**
+   * Returns a function building a cached static floor field, that can be provided to scenario builders.
+   *
+   * @param type      type of floor field computing values when they are not cached yet.
+   * @param directory directory where cache files are stored.
+   * @return a function building a cached static floor field for a scenario.
+   */
+  public static Function<Scenario, FloorField> of(StaticFloorFieldType type, Path directory) {
+    return scenario -> new CachedStaticFloorField(type, scenario, directory);
+  }
+
+  @Override
+  public int getRows() {
+    return scenario.getRows();
+  }
+
+  @Override
+  public int getColumns() {
+    return scenario.getColumns();
+  }
+
+  /**
+   * Error raised when reading or writing cache file of this floor field, if any. Such errors do not make
+   * initialization fail, as values are then computed and served from memory.
+   *
+   * @return error raised when accessing cache, or empty if there was none.
+   */
+  public Optional<IOException> getCacheFailure() {
+    return Optional.ofNullable(cacheFailure);
+  }
+
+  /**
+   * Content hash of type of floor field and geometry of scenario.
+   */
+  private byte[] digest() {
+    MessageDigest messageDigest;
+    try {
+      messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("digest: " + DIGEST_ALGORITHM + " is not available", e);
+    }
+    messageDigest.update(type.name().getBytes(StandardCharsets.UTF_8));
+
+    var rows = getRows();
+    var columns = getColumns();
+    var buffer = ByteBuffer.allocate(Math.max(4 * Integer.BYTES, columns));
+    buffer.putInt(rows).putInt(columns).flip();
+    messageDigest.update(buffer);
+    for (int i = 0; i < rows; i++) {
+      buffer.clear();
+      for (int j = 0; j < columns; j++) {
+        buffer.put((byte) (scenario.isBlocked(i, j) ? 1 : scenario.isExit(i, j) ? 2 : 0));
+      }
+      buffer.flip();
+      messageDigest.update(buffer);
+    }
+    // some floor fields depend on exit rectangles and their order, not only on cells
+    for (var exit : scenario.exits()) {
+      buffer.clear();
+      buffer.putInt(exit.bottom()).putInt(exit.left()).putInt(exit.height()).putInt(exit.width()).flip();
+      messageDigest.update(buffer);
+    }
+    return messageDigest.digest();
+  }
+
+  private Path cacheFile(byte[] digest) {
+    return directory.resolve("floorField-" + HexFormat.of().formatHex(digest) + ".field");
+  }
+
+  /**
+   * Maps a cache file if it is valid.
+   *
+   * @return mapped values, or {@code null} if file does not exist or is not valid.
+   */
+  private DoubleBuffer map(Path file, byte[] digest) throws IOException {
+    var expectedSize = HEADER_SIZE + (long) Double.BYTES * getRows() * getColumns();
+    if (!Files.isRegularFile(file) || Files.size(file) != expectedSize) {
+      return null;
+    }
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          return null;
+        }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != getRows()
+          || header.getInt() != getColumns()) {
+        return null;
+      }
+      var fileDigest = new byte[DIGEST_LENGTH];
+      header.get(fileDigest);
+      if (!Arrays.equals(fileDigest, digest)) {
+        return null;
+      }
+      // mapping remains valid after channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, expectedSize - HEADER_SIZE).asDoubleBuffer();
+    }
+  }
+
+  /**
+   * Writes computed values to a cache file. File is written to a temporary file which is then atomically moved, so
+   * that concurrent runs never see a partially written cache file.
+   */
+  private void store(Path file, byte[] digest) throws IOException {
+    var rows = getRows();
+    var columns = getColumns();
+    var temporaryFile = Files.createTempFile(directory, "field", ".tmp");
+    try {
+      try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).put(digest).flip();
+        while (header.hasRemaining()) {
+          channel.write(header);
+        }
+        var row = ByteBuffer.allocate(Double.BYTES * columns);
+        for (int i = 0; i < rows; i++) {
+          row.clear();
+          for (int j = 0; j < columns; j++) {
+            row.putDouble(floorField.getField(i, j));
+          }
+          row.flip();
+          while (row.hasRemaining()) {
+            channel.write(row);
+          }
+        }
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Maps cache file of this floor field, or computes it and stores it in cache if there is no valid cache file.
+   */
+  @Override
+  protected void compute() {
+    var digest = digest();
+    var file = cacheFile(digest);
+    try {
+      field = map(file, digest);
+    } catch (IOException e) {
+      // values are computed instead
+      cacheFailure = e;
+    }
+    if (field != null) {
+      return;
+    }
+    floorField = type.build().apply(scenario);
+    if (!floorField.getType().equals(type.name())) {
+      throw new IllegalArgumentException("compute: type of built floor field " + floorField.getType()
+          + " differs from " + type.name());
+    }
+    floorField.initialize();
+    if (cacheFailure == null) {
+      try {
+        Files.createDirectories(directory);
+        store(file, digest);
+      } catch (IOException e) {
+        // values computed are still served from memory
+        cacheFailure = e;
+      }
+    }
+  }
+
+  @Override
+  public double getField(int row, int column) {
+    assert (row >= 0 && row < getRows()) : "getField: invalid row";
+    assert (column >= 0 && column < getColumns()) : "getField: invalid column";
+    assert isInitialized() : "getField: floor field has not been initialized";
+    return field != null ? field.get(row * getColumns() + column) : floorField.getField(row, column);
+  }
+
+  @Override
+  public double getField(Location location) {
+    return getField(location.row(), location.column());
+  }
+}
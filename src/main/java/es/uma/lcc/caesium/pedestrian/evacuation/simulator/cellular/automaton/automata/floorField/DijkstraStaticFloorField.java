@@ -3,7 +3,7 @@ package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.au
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.Neighbourhood;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
 
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.function.Function;
 
 /**
@@ -24,67 +24,140 @@ public class DijkstraStaticFloorField extends StaticFloorField {
     return new DijkstraStaticFloorField(scenario, buildNeighbourhood);
   }
 
-  public void initialize() {
-    record Node(int row, int column, double priority) implements Comparable<Node> {
-      @Override
-      public int compareTo(Node that) {
-        return Double.compare(this.priority, that.priority);
-      }
+  /**
+   * Returns type of Dijkstra static floor fields built with a neighbourhood relationship.
+   *
+   * @param neighbourhoodClass class of neighbourhoods built by {@code buildNeighbourhood}.
+   * @param buildNeighbourhood a function taking a scenario and returning neighbourhood relationship used to find
+   *                           the shortest paths.
+   * @return type of Dijkstra static floor fields built with {@code buildNeighbourhood}.
+   */
+  public static StaticFloorFieldType type(Class<? extends Neighbourhood> neighbourhoodClass
+      , Function<Scenario, Neighbourhood> buildNeighbourhood) {
+    return new StaticFloorFieldType(typeName(DijkstraStaticFloorField.class, neighbourhoodClass)
+        , scenario -> of(scenario, buildNeighbourhood));
+  }
+
+  /**
+   * Describes how floor fields of a class computed with a neighbourhood relationship are computed.
+   */
+  protected static String typeName(Class<? extends DijkstraStaticFloorField> floorFieldClass
+      , Class<? extends Neighbourhood> neighbourhoodClass) {
+    return floorFieldClass.getName() + "(" + neighbourhoodClass.getName() + ")";
+  }
+
+  @Override
+  public String getType() {
+    return typeName(getClass(), neighbourhood.getClass());
+  }
+
+  /**
+   * Computes shortest distances with Dial's algorithm: a bucketed priority queue where cells are grouped by integer
+   * part of their tentative distance. As every edge is at least 1 long, cells in a bucket cannot improve each other,
+   * so a bucket holds final distances when it is reached and it can be processed in any order. As edges are shorter
+   * than number of buckets minus one, only a few buckets are ever in use, so they are reused circularly.
+   * <p>
+   * Each distance is still the minimum of {@code distance(u) + delta} over neighbours {@code u}, computed with same
+   * floating point operations, so resulting field is identical to the one computed with a binary heap.
+   */
+  @Override
+  protected void compute() {
+    var rows = getRows();
+    var columns = getColumns();
+    var numberOfCells = rows * columns;
+
+    // Length of an edge in each direction of neighbourhood
+    var numberOfDirections = neighbourhood.numberOfDirections();
+    var deltas = new double[numberOfDirections];
+    var maxDelta = 0.0;
+    for (int direction = 0; direction < numberOfDirections; direction++) {
+      int rowdiff = neighbourhood.rowOffset(direction);
+      int coldiff = neighbourhood.columnOffset(direction);
+      deltas[direction] = Math.sqrt(rowdiff*rowdiff + coldiff*coldiff);
+      maxDelta = Math.max(maxDelta, deltas[direction]);
     }
 
-    // Compute the shortest distances to any exit from each node
-    var priorityQueue = new PriorityQueue<Node>();
+    // Bucket k holds cells whose tentative distance is in [k, k+1). Relaxing a cell in bucket k can only reach
+    // buckets k+1 to k+1+floor(maxDelta)
+    var numberOfBuckets = (int) maxDelta + 2;
+    var buckets = new int[numberOfBuckets][];
+    var bucketSizes = new int[numberOfBuckets];
+    for (int bucket = 0; bucket < numberOfBuckets; bucket++) {
+      buckets[bucket] = new int[Math.max(16, columns)];
+    }
+
+    var distance = new double[numberOfCells];
+    var blocked = new boolean[numberOfCells];
+    var settled = new boolean[numberOfCells];
+    var numberOfPending = 0;
 
     // Initially distance to any exit is 0 and to any other non-blocked cell is Infinity
-    for (int i = 0; i < getRows(); i++) {
-      for (int j = 0; j < getColumns(); j++) {
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        var cell = i * columns + j;
+        blocked[cell] = scenario.isBlocked(i, j);
         if (scenario.isExit(i, j)) {
-          staticFloorField[i][j] = 0;
-          priorityQueue.add(new Node(i, j, staticFloorField[i][j]));
-        } else if (scenario.isBlocked(i, j)) {
-          staticFloorField[i][j] = Double.MAX_VALUE;
+          distance[cell] = 0;
+          if (bucketSizes[0] == buckets[0].length) {
+            buckets[0] = Arrays.copyOf(buckets[0], 2 * buckets[0].length);
+          }
+          buckets[0][bucketSizes[0]++] = cell;
+          numberOfPending++;
         } else {
-          staticFloorField[i][j] = Double.MAX_VALUE;
-          // priorityQueue.add(new Node(i, j, staticFloorField[i][j]));
+          distance[cell] = Double.MAX_VALUE;
         }
       }
     }
 
     double maxDistance = 0; // will store distance for non-blocked cell that is furthest away from an exit
 
-    while (!priorityQueue.isEmpty()) {
-      var node = priorityQueue.poll();
-      double nodeDistance = staticFloorField[node.row][node.column];
-      if (node.priority == nodeDistance) {
-        // This is first extraction of node from PQ, hence it corresponds to its optimal cost, which is already
-        // recorded in staticFloorField.
-        // Now that we know optimal cost for node, let's compute alternative costs to its neighbours and
-        // update if they improve current ones
-        for (var neighbour : neighbourhood.neighbours(node.row, node.column)) {
-          if (!scenario.isBlocked(neighbour)) {
-        	int rowdiff = neighbour.row() - node.row;
-        	int coldiff = neighbour.column() - node.column;
-            var delta = Math.sqrt(rowdiff*rowdiff + coldiff*coldiff);
-            double newNeighbourDistance = nodeDistance + delta;
-            if (newNeighbourDistance < staticFloorField[neighbour.row()][neighbour.column()]) {
+    for (int current = 0; numberOfPending > 0; current++) {
+      var bucket = current % numberOfBuckets;
+      // cells are never added to bucket being processed
+      for (int k = 0; k < bucketSizes[bucket]; k++) {
+        var cell = buckets[bucket][k];
+        if (settled[cell]) {
+          // cell was added again to this bucket after its distance improved
+          continue;
+        }
+        // Distance to this cell is optimal. Let's compute alternative distances to its neighbours and update if
+        // they improve current ones
+        settled[cell] = true;
+        var cellDistance = distance[cell];
+        for (int direction = 0; direction < numberOfDirections; direction++) {
+          var neighbour = neighbourhood.neighbour(cell, direction);
+          if (neighbour >= 0 && !blocked[neighbour]) {
+            double newNeighbourDistance = cellDistance + deltas[direction];
+            if (newNeighbourDistance < distance[neighbour]) {
               // Shorter distance to neighbour was found: update
-              staticFloorField[neighbour.row()][neighbour.column()] = newNeighbourDistance;
-              priorityQueue.add(new Node(neighbour.row(), neighbour.column(), newNeighbourDistance));
+              distance[neighbour] = newNeighbourDistance;
+              var neighbourBucket = (int) newNeighbourDistance % numberOfBuckets;
+              if (bucketSizes[neighbourBucket] == buckets[neighbourBucket].length) {
+                buckets[neighbourBucket] = Arrays.copyOf(buckets[neighbourBucket]
+                    , 2 * buckets[neighbourBucket].length);
+              }
+              buckets[neighbourBucket][bucketSizes[neighbourBucket]++] = neighbour;
+              numberOfPending++;
             }
           }
         }
-        if (nodeDistance > maxDistance) {
+        if (cellDistance > maxDistance) {
           // A cell that is furthest away from an exit was found
-          maxDistance = nodeDistance;
+          maxDistance = cellDistance;
         }
       }
+      numberOfPending -= bucketSizes[bucket];
+      bucketSizes[bucket] = 0;
     }
 
     // Normalize so that the closer to an exit the larger the static field
-    for (int i = 0; i < getRows(); i++) {
-      for (int j = 0; j < getColumns(); j++) {
-        if (!scenario.isBlocked(i, j)) {
-          staticFloorField[i][j] = 1 - staticFloorField[i][j] / maxDistance;
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        var cell = i * columns + j;
+        if (blocked[cell]) {
+          staticFloorField[i][j] = Double.MAX_VALUE;
+        } else {
+          staticFloorField[i][j] = 1 - distance[cell] / maxDistance;
         }
       }
     }
@@ -10,6 +10,13 @@ import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.aut
  * @author Pepe Gallardo
  */
 public class DijkstraStaticFloorFieldWithMooreNeighbourhood extends DijkstraStaticFloorField {
+  /**
+   * Type of Dijkstra static floor fields with Moore's neighbourhood.
+   */
+  public static final StaticFloorFieldType TYPE = new StaticFloorFieldType(
+      typeName(DijkstraStaticFloorFieldWithMooreNeighbourhood.class, MooreNeighbourhood.class)
+      , DijkstraStaticFloorFieldWithMooreNeighbourhood::of);
+
   public DijkstraStaticFloorFieldWithMooreNeighbourhood(Scenario scenario) {
     super(scenario, MooreNeighbourhood::of);
   }
@@ -10,6 +10,13 @@ import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.aut
  * @author Pepe Gallardo
  */
 public class DijkstraStaticFloorFieldWithVonNewmanNeighbourhood extends DijkstraStaticFloorField {
+  /**
+   * Type of Dijkstra static floor fields with Von Newman's neighbourhood.
+   */
+  public static final StaticFloorFieldType TYPE = new StaticFloorFieldType(
+      typeName(DijkstraStaticFloorFieldWithVonNewmanNeighbourhood.class, VonNeumannNeighbourhood.class)
+      , DijkstraStaticFloorFieldWithVonNewmanNeighbourhood::of);
+
   public DijkstraStaticFloorFieldWithVonNewmanNeighbourhood(Scenario scenario) {
     super(scenario, VonNeumannNeighbourhood::of);
   }
@@ -0,0 +1,376 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Class for representing a static floor field proportional to the Euclidean distance of each cell to its closest
+ * exit, avoiding blocked cells. Unlike {@link DijkstraStaticFloorField}, distances are not restricted to paths along
+ * edges of a grid graph, so they do not suffer from metrication artefacts (e.g. diamond or octagon shaped
+ * isolines). Distances are computed by solving eikonal equation {@code |grad T| = 1}, with {@code T = 0} at exits,
+ * by using Godunov's upwind discretization.
+ */
+public class EuclideanStaticFloorField extends StaticFloorField {
+  /**
+   * Methods for solving eikonal equation.
+   */
+  public enum Solver {
+    /**
+     * Fast marching method: cells are accepted in increasing order of distance, as in Dijkstra's algorithm.
+     */
+    FAST_MARCHING,
+    /**
+     * Fast sweeping method: grid is repeatedly swept in four alternating directions until no distance changes.
+     */
+    FAST_SWEEPING,
+    /**
+     * Fast sweeping method where four sweep directions run concurrently on copies of distances, which are then
+     * merged by taking the minimum.
+     */
+    PARALLEL_FAST_SWEEPING
+  }
+
+  private static final int NUMBER_OF_SWEEPS = 4;
+
+  protected final Solver solver;
+
+  public EuclideanStaticFloorField(Scenario scenario, Solver solver) {
+    super(new double[scenario.getRows()][scenario.getColumns()], scenario);
+    this.solver = solver;
+  }
+
+  public EuclideanStaticFloorField(Scenario scenario) {
+    this(scenario, Solver.FAST_MARCHING);
+  }
+
+  public static EuclideanStaticFloorField of(Scenario scenario, Solver solver) {
+    return new EuclideanStaticFloorField(scenario, solver);
+  }
+
+  public static EuclideanStaticFloorField of(Scenario scenario) {
+    return new EuclideanStaticFloorField(scenario);
+  }
+
+  /**
+   * Returns type of Euclidean static floor fields computed with a solver.
+   *
+   * @param solver method for solving eikonal equation.
+   * @return type of Euclidean static floor fields computed with {@code solver}.
+   */
+  public static StaticFloorFieldType type(Solver solver) {
+    return new StaticFloorFieldType(typeName(EuclideanStaticFloorField.class, solver)
+        , scenario -> of(scenario, solver));
+  }
+
+  /**
+   * Describes how floor fields of a class computed with a solver are computed.
+   */
+  protected static String typeName(Class<? extends EuclideanStaticFloorField> floorFieldClass, Solver solver) {
+    return floorFieldClass.getName() + "(" + solver + ")";
+  }
+
+  @Override
+  public String getType() {
+    return typeName(getClass(), solver);
+  }
+
+  @Override
+  protected void compute() {
+    var rows = getRows();
+    var columns = getColumns();
+    var numberOfCells = rows * columns;
+
+    var blocked = new boolean[numberOfCells];
+    var exit = new boolean[numberOfCells];
+    var distance = new double[numberOfCells];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        var cell = i * columns + j;
+        blocked[cell] = scenario.isBlocked(i, j);
+        exit[cell] = scenario.isExit(i, j);
+        distance[cell] = exit[cell] ? 0 : Double.POSITIVE_INFINITY;
+      }
+    }
+
+    switch (solver) {
+      case FAST_MARCHING -> fastMarching(distance, blocked);
+      case FAST_SWEEPING -> fastSweeping(distance, blocked, exit);
+      case PARALLEL_FAST_SWEEPING -> parallelFastSweeping(distance, blocked, exit);
+    }
+
+    double maxDistance = 0; // will store distance for non-blocked cell that is furthest away from an exit
+    for (int cell = 0; cell < numberOfCells; cell++) {
+      if (!blocked[cell] && distance[cell] < Double.POSITIVE_INFINITY && distance[cell] > maxDistance) {
+        maxDistance = distance[cell];
+      }
+    }
+
+    // Normalize so that the closer to an exit the larger the static field
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        var cell = i * columns + j;
+        var cellDistance = distance[cell] < Double.POSITIVE_INFINITY ? distance[cell] : Double.MAX_VALUE;
+        staticFloorField[i][j] = blocked[cell] ? Double.MAX_VALUE : 1 - cellDistance / maxDistance;
+      }
+    }
+  }
+
+  /**
+   * Solves discretized eikonal equation at a cell from distances of its four axis neighbours. Blocked cells and
+   * cells outside the grid must be regarded as infinitely far.
+   *
+   * @param horizontal minimum distance of left and right neighbours.
+   * @param vertical   minimum distance of upper and lower neighbours.
+   * @return distance to cell, or infinity if both neighbours are infinitely far.
+   */
+  private static double godunov(double horizontal, double vertical) {
+    var minimum = Math.min(horizontal, vertical);
+    if (minimum == Double.POSITIVE_INFINITY) {
+      return Double.POSITIVE_INFINITY;
+    }
+    var difference = horizontal - vertical;
+    if (Math.abs(difference) >= 1) {
+      // wave front arrives along a single axis
+      return minimum + 1;
+    }
+    return (horizontal + vertical + Math.sqrt(2 - difference * difference)) / 2;
+  }
+
+  /**
+   * Solves discretized eikonal equation at a non-blocked cell from current distances.
+   */
+  private double update(double[] distance, boolean[] blocked, int row, int column) {
+    var rows = getRows();
+    var columns = getColumns();
+    var cell = row * columns + column;
+    var horizontal = Double.POSITIVE_INFINITY;
+    if (column > 0 && !blocked[cell - 1]) {
+      horizontal = distance[cell - 1];
+    }
+    if (column < columns - 1 && !blocked[cell + 1]) {
+      horizontal = Math.min(horizontal, distance[cell + 1]);
+    }
+    var vertical = Double.POSITIVE_INFINITY;
+    if (row > 0 && !blocked[cell - columns]) {
+      vertical = distance[cell - columns];
+    }
+    if (row < rows - 1 && !blocked[cell + columns]) {
+      vertical = Math.min(vertical, distance[cell + columns]);
+    }
+    return godunov(horizontal, vertical);
+  }
+
+  private void fastMarching(double[] distance, boolean[] blocked) {
+    var rows = getRows();
+    var columns = getColumns();
+    var numberOfCells = rows * columns;
+
+    // only distances of accepted cells are used for updating other ones
+    var accepted = new boolean[numberOfCells];
+    var tentative = distance.clone();
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+
+    var heap = new IndexedMinHeap(numberOfCells, tentative);
+    for (int cell = 0; cell < numberOfCells; cell++) {
+      if (tentative[cell] == 0) {
+        heap.insert(cell);
+      }
+    }
+
+    while (!heap.isEmpty()) {
+      var cell = heap.removeMinimum();
+      accepted[cell] = true;
+      distance[cell] = tentative[cell];
+
+      var row = cell / columns;
+      var column = cell % columns;
+      for (int direction = 0; direction < 4; direction++) {
+        int neighbourRow = row, neighbourColumn = column;
+        switch (direction) {
+          case 0 -> neighbourRow--;
+          case 1 -> neighbourRow++;
+          case 2 -> neighbourColumn--;
+          default -> neighbourColumn++;
+        }
+        if (neighbourRow < 0 || neighbourRow >= rows || neighbourColumn < 0 || neighbourColumn >= columns) {
+          continue;
+        }
+        var neighbour = neighbourRow * columns + neighbourColumn;
+        if (blocked[neighbour] || accepted[neighbour]) {
+          continue;
+        }
+        var newDistance = update(distance, blocked, neighbourRow, neighbourColumn);
+        if (newDistance < tentative[neighbour]) {
+          tentative[neighbour] = newDistance;
+          if (heap.contains(neighbour)) {
+            heap.decreaseKey(neighbour);
+          } else {
+            heap.insert(neighbour);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Sweeps grid once in a direction, updating distances in place.
+   *
+   * @param sweep direction of sweep (0 to 3). Determines whether rows and columns are traversed in increasing or
+   *              decreasing order.
+   * @return {@code true} if any distance changed.
+   */
+  private boolean sweep(double[] distance, boolean[] blocked, boolean[] exit, int sweep) {
+    var rows = getRows();
+    var columns = getColumns();
+    var increasingRows = (sweep & 1) == 0;
+    var increasingColumns = (sweep & 2) == 0;
+
+    var changed = false;
+    for (int r = 0; r < rows; r++) {
+      var row = increasingRows ? r : rows - 1 - r;
+      for (int c = 0; c < columns; c++) {
+        var column = increasingColumns ? c : columns - 1 - c;
+        var cell = row * columns + column;
+        if (blocked[cell] || exit[cell]) {
+          continue;
+        }
+        var newDistance = update(distance, blocked, row, column);
+        if (newDistance < distance[cell]) {
+          distance[cell] = newDistance;
+          changed = true;
+        }
+      }
+    }
+    return changed;
+  }
+
+  private void fastSweeping(double[] distance, boolean[] blocked, boolean[] exit) {
+    // distances only decrease, so they eventually stop changing
+    var numberOfUnchangedSweeps = 0;
+    for (int sweep = 0; numberOfUnchangedSweeps < NUMBER_OF_SWEEPS; sweep = (sweep + 1) % NUMBER_OF_SWEEPS) {
+      if (sweep(distance, blocked, exit, sweep)) {
+        numberOfUnchangedSweeps = 0;
+      } else {
+        numberOfUnchangedSweeps++;
+      }
+    }
+  }
+
+  private void parallelFastSweeping(double[] distance, boolean[] blocked, boolean[] exit) {
+    var copies = new double[NUMBER_OF_SWEEPS][distance.length];
+    var changed = true;
+    while (changed) {
+      for (var copy : copies) {
+        System.arraycopy(distance, 0, copy, 0, distance.length);
+      }
+      IntStream.range(0, NUMBER_OF_SWEEPS).parallel()
+          .forEach(sweep -> sweep(copies[sweep], blocked, exit, sweep));
+
+      changed = false;
+      for (int cell = 0; cell < distance.length; cell++) {
+        var minimum = distance[cell];
+        for (var copy : copies) {
+          minimum = Math.min(minimum, copy[cell]);
+        }
+        if (minimum < distance[cell]) {
+          distance[cell] = minimum;
+          changed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Binary heap of cell indexes ordered by their keys, supporting decrease-key operation.
+   */
+  private static final class IndexedMinHeap {
+    private final int[] heap;
+    /**
+     * Position of each cell in heap, or -1 if not in heap.
+     */
+    private final int[] position;
+    private final double[] key;
+    private int size;
+
+    IndexedMinHeap(int capacity, double[] key) {
+      this.heap = new int[capacity];
+      this.position = new int[capacity];
+      Arrays.fill(position, -1);
+      this.key = key;
+      this.size = 0;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    boolean contains(int cell) {
+      return position[cell] >= 0;
+    }
+
+    void insert(int cell) {
+      heap[size] = cell;
+      position[cell] = size;
+      siftUp(size++);
+    }
+
+    /**
+     * Restores heap order after key of a cell in heap decreased.
+     */
+    void decreaseKey(int cell) {
+      siftUp(position[cell]);
+    }
+
+    int removeMinimum() {
+      var minimum = heap[0];
+      position[minimum] = -1;
+      size--;
+      if (size > 0) {
+        heap[0] = heap[size];
+        position[heap[0]] = 0;
+        siftDown(0);
+      }
+      return minimum;
+    }
+
+    private void siftUp(int index) {
+      var cell = heap[index];
+      var cellKey = key[cell];
+      while (index > 0) {
+        var parent = (index - 1) / 2;
+        if (key[heap[parent]] <= cellKey) {
+          break;
+        }
+        heap[index] = heap[parent];
+        position[heap[index]] = index;
+        index = parent;
+      }
+      heap[index] = cell;
+      position[cell] = index;
+    }
+
+    private void siftDown(int index) {
+      var cell = heap[index];
+      var cellKey = key[cell];
+      while (true) {
+        var child = 2 * index + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+          child++;
+        }
+        if (key[heap[child]] >= cellKey) {
+          break;
+        }
+        heap[index] = heap[child];
+        position[heap[index]] = index;
+        index = child;
+      }
+      heap[index] = cell;
+      position[cell] = index;
+    }
+  }
+}
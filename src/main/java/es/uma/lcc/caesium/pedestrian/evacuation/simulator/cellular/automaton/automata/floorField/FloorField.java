@@ -23,10 +23,28 @@ public interface FloorField {
   int getColumns();
 
   /**
-   * Initializes this floor field.
+   * Initializes this floor field if it has not been initialized yet. Calling it more than once has no effect, and it
+   * can be called concurrently by several threads sharing this floor field. After it returns, field can be read from
+   * calling thread.
    */
   void initialize();
 
+  /**
+   * Checks whether this floor field has been initialized.
+   *
+   * @return {@code true} if this floor field has been initialized.
+   */
+  boolean isInitialized();
+
+  /**
+   * Gets time (in seconds) it took to initialize this floor field. As initialization only takes place once, this
+   * time is the same for all automata sharing this floor field.
+   *
+   * @return time (in seconds) it took to initialize this floor field, or {@code NaN} if it has not been initialized
+   * yet.
+   */
+  double getInitializationTime();
+
   /**
    * Gets field of cell located at given row and column.
    *
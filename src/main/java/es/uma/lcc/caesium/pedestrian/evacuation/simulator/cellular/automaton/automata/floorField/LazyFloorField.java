@@ -0,0 +1,49 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField;
+
+/**
+ * Floor field which is computed lazily, only once, when it is first initialized. Initialization is idempotent and
+ * thread-safe, so a floor field can be shared by several automata running concurrently on the same scenario: first
+ * one to initialize it computes it, other ones wait until it is computed and then read it. As floor field is never
+ * modified after being computed, reading it requires no further synchronization.
+ */
+public abstract class LazyFloorField implements FloorField {
+  /**
+   * Whether this floor field has been computed. Writing it publishes computed field to any thread that later reads
+   * it.
+   */
+  private volatile boolean initialized = false;
+  /**
+   * Time (in seconds) it took to compute this floor field.
+   */
+  private double initializationTime = Double.NaN;
+
+  /**
+   * Computes this floor field. Only called once, by the thread that first initializes this floor field.
+   */
+  protected abstract void compute();
+
+  @Override
+  public final void initialize() {
+    if (!initialized) {
+      synchronized (this) {
+        if (!initialized) {
+          var nanosBefore = System.nanoTime();
+          compute();
+          initializationTime = (System.nanoTime() - nanosBefore) / 1e9;
+          initialized = true;
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isInitialized() {
+    return initialized;
+  }
+
+  @Override
+  public double getInitializationTime() {
+    // reading volatile flag first makes time written before setting it visible
+    return initialized ? initializationTime : Double.NaN;
+  }
+}
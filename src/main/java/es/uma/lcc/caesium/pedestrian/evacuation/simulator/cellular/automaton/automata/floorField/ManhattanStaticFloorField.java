@@ -2,12 +2,20 @@ package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.au
 
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
 
+import java.util.Arrays;
+
 /**
  * Class for representing a static floor field proportional to Manhattan distance of each cell to its closest exit.
  *
  * @author Pepe Gallardo
  */
 public class ManhattanStaticFloorField extends StaticFloorField {
+  /**
+   * Type of Manhattan static floor fields.
+   */
+  public static final StaticFloorFieldType TYPE =
+      new StaticFloorFieldType(ManhattanStaticFloorField.class.getName(), ManhattanStaticFloorField::of);
+
   public ManhattanStaticFloorField(Scenario scenario) {
     super(new double[scenario.getRows()][scenario.getColumns()], scenario);
   }
@@ -16,28 +24,69 @@ public class ManhattanStaticFloorField extends StaticFloorField {
     return new ManhattanStaticFloorField(scenario);
   }
 
-  public void initialize() {
-    // For each cell compute Manhattan distance to the closest exit
+  /**
+   * Computes Manhattan distance of each cell to the closest exit with a two-pass distance transform, so that time
+   * is linear in number of cells regardless of number of exits.
+   */
+  @Override
+  protected void compute() {
+    var rows = getRows();
+    var columns = getColumns();
+    final int infinity = Integer.MAX_VALUE / 2;
+
+    // Distance from cells in exits is 0
+    var distance = new int[rows][columns];
+    for (var row : distance) {
+      Arrays.fill(row, infinity);
+    }
     var maxDistance = Double.MIN_VALUE;
-    for (int i = 0; i < getRows(); i++) {
-      for (int j = 0; j < getColumns(); j++) {
-        staticFloorField[i][j] = Double.MAX_VALUE;
-        for (var exit : scenario.exits()) {
-          int distance = exit.manhattanDistance(i, j);
-          if (distance < staticFloorField[i][j]) {
-            staticFloorField[i][j] = distance;
-            if (distance > maxDistance) {
-              maxDistance = distance;
-            }
+    var isFirstExit = true;
+    for (var exit : scenario.exits()) {
+      for (int i = exit.bottom(); i <= exit.top(); i++) {
+        for (int j = exit.left(); j <= exit.right(); j++) {
+          distance[i][j] = 0;
+        }
+      }
+      if (isFirstExit) {
+        // Distances have always been normalized by the largest distance of any cell to first exit being considered,
+        // which upper bounds the largest distance to the closest exit
+        for (int i = 0; i < rows; i++) {
+          for (int j = 0; j < columns; j++) {
+            maxDistance = Math.max(maxDistance, exit.manhattanDistance(i, j));
           }
         }
+        isFirstExit = false;
+      }
+    }
+
+    // Forward pass propagates distances from cells above and to the left
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        if (i > 0) {
+          distance[i][j] = Math.min(distance[i][j], distance[i - 1][j] + 1);
+        }
+        if (j > 0) {
+          distance[i][j] = Math.min(distance[i][j], distance[i][j - 1] + 1);
+        }
+      }
+    }
+    // Backward pass propagates distances from cells below and to the right
+    for (int i = rows - 1; i >= 0; i--) {
+      for (int j = columns - 1; j >= 0; j--) {
+        if (i < rows - 1) {
+          distance[i][j] = Math.min(distance[i][j], distance[i + 1][j] + 1);
+        }
+        if (j < columns - 1) {
+          distance[i][j] = Math.min(distance[i][j], distance[i][j + 1] + 1);
+        }
       }
     }
 
     // Normalize so that the closer to an exit the larger the static field
-    for (int i = 0; i < getRows(); i++) {
-      for (int j = 0; j < getColumns(); j++) {
-        staticFloorField[i][j] = 1 - staticFloorField[i][j] / maxDistance;
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        var cellDistance = distance[i][j] < infinity ? distance[i][j] : Double.MAX_VALUE;
+        staticFloorField[i][j] = 1 - cellDistance / maxDistance;
       }
     }
   }
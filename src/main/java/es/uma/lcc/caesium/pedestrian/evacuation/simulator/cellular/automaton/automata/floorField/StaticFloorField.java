@@ -8,7 +8,7 @@ import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geo
  *
  * @author Pepe Gallardo
  */
-public abstract class StaticFloorField implements FloorField {
+public abstract class StaticFloorField extends LazyFloorField {
   protected final double[][] staticFloorField;
   protected final Scenario scenario;
 
@@ -17,7 +17,15 @@ public abstract class StaticFloorField implements FloorField {
     this.scenario = scenario;
   }
 
-  public abstract void initialize();
+  /**
+   * Describes how this floor field is computed, so that fields computed in the same way for scenarios with same
+   * geometry can be reused (see {@link CachedStaticFloorField}).
+   *
+   * @return description of how this floor field is computed.
+   */
+  public String getType() {
+    return getClass().getName();
+  }
 
   @Override
   public int getRows() {
@@ -33,6 +41,7 @@ public abstract class StaticFloorField implements FloorField {
   public double getField(int row, int column) {
     assert (row >= 0 && row < getRows()) : "getField: invalid row";
     assert (column >= 0 && column < getColumns()) : "getField: invalid column";
+    assert isInitialized() : "getField: floor field has not been initialized";
     return staticFloorField[row][column];
   }
 
@@ -0,0 +1,17 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+
+import java.util.function.Function;
+
+/**
+ * Way of computing static floor fields for any scenario. It names floor fields it builds without building them, so
+ * that computed fields can be looked up in a cache (see {@link CachedStaticFloorField}). Each floor field class
+ * provides its own types, so that their names always agree with {@link StaticFloorField#getType()}.
+ *
+ * @param name  describes how floor fields are computed, as returned by {@link StaticFloorField#getType()} for floor
+ *              fields built by {@code build}.
+ * @param build function building a floor field of this type for a scenario.
+ */
+public record StaticFloorFieldType(String name, Function<Scenario, ? extends StaticFloorField> build) {
+}
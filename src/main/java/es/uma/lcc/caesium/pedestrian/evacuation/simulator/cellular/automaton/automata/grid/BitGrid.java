@@ -0,0 +1,260 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid;
+
+import java.util.Arrays;
+
+/**
+ * Class for representing a grid of boolean cells packed into bits of a flat array, in row-major order. Grid is
+ * surrounded by a border of sentinel cells, one cell wide, whose value is fixed when grid is created. Hence, any
+ * neighbour of a cell within the grid can be read without checking bounds.
+ * <p>
+ * Cells can be accessed by their row and column, or by their index within padded grid, which is
+ * {@code (row + 1) * stride() + (column + 1)}. Neighbour of a cell in direction {@code (rowOffset, columnOffset)} has
+ * index {@code index + rowOffset * stride() + columnOffset}.
+ */
+public class BitGrid {
+  private static final int LOG_BITS_PER_WORD = 6;
+
+  /**
+   * Number of rows and columns in grid, not including border.
+   */
+  private final int rows, columns;
+  /**
+   * Number of cells in padded grid, including border. Indexes of cells range from 0 to this number minus 1.
+   *
+   * @return number of cells in padded grid.
+   */
+  public int size() {
+    return (rows + 2) * stride;
+  }
+
+  /**
+   * Difference between indexes of vertically adjacent cells.
+   */
+  private final int stride;
+  /**
+   * Value of cells in border.
+   */
+  private final boolean border;
+  /**
+   * Bits corresponding to all cells in padded grid.
+   */
+  private final long[] words;
+
+  /**
+   * Creates a new grid whose cells are all {@code false}.
+   *
+   * @param rows    number of rows in grid.
+   * @param columns number of columns in grid.
+   * @param border  value of sentinel cells surrounding grid.
+   */
+  public BitGrid(int rows, int columns, boolean border) {
+    if (rows <= 0) {
+      throw new IllegalArgumentException("BitGrid: rows should be larger than 0");
+    }
+    if (columns <= 0) {
+      throw new IllegalArgumentException("BitGrid: columns should be larger than 0");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.stride = columns + 2;
+    this.border = border;
+    var numberOfCells = (long) (rows + 2) * stride;
+    this.words = new long[(int) ((numberOfCells + Long.SIZE - 1) >>> LOG_BITS_PER_WORD)];
+    setBorder();
+  }
+
+  private void setBorder() {
+    if (border) {
+      for (int column = -1; column <= columns; column++) {
+        setBit(index(-1, column));
+        setBit(index(rows, column));
+      }
+      for (int row = 0; row < rows; row++) {
+        setBit(index(row, -1));
+        setBit(index(row, columns));
+      }
+    }
+  }
+
+  private void setBit(int index) {
+    words[index >>> LOG_BITS_PER_WORD] |= 1L << index;
+  }
+
+  /**
+   * Number of words of 64 bits used to store this grid.
+   *
+   * @return number of words used to store this grid.
+   */
+  protected int numberOfWords() {
+    return words.length;
+  }
+
+  /**
+   * Number of rows in this grid, not including border.
+   *
+   * @return number of rows in this grid.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Number of columns in this grid, not including border.
+   *
+   * @return number of columns in this grid.
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * Difference between indexes of vertically adjacent cells.
+   *
+   * @return difference between indexes of vertically adjacent cells.
+   */
+  public int stride() {
+    return stride;
+  }
+
+  /**
+   * Index of a cell in padded grid.
+   *
+   * @param row    vertical coordinate of cell (from -1 to number of rows).
+   * @param column horizontal coordinate of cell (from -1 to number of columns).
+   * @return index of cell in padded grid.
+   */
+  public int index(int row, int column) {
+    return (row + 1) * stride + (column + 1);
+  }
+
+  /**
+   * Row of a cell given its index in padded grid.
+   *
+   * @param index index of cell in padded grid.
+   * @return vertical coordinate of cell.
+   */
+  public int row(int index) {
+    return index / stride - 1;
+  }
+
+  /**
+   * Column of a cell given its index in padded grid.
+   *
+   * @param index index of cell in padded grid.
+   * @return horizontal coordinate of cell.
+   */
+  public int column(int index) {
+    return index % stride - 1;
+  }
+
+  /**
+   * Gets value of a cell.
+   *
+   * @param index index of cell in padded grid.
+   * @return value of cell.
+   */
+  public final boolean get(int index) {
+    return (words[index >>> LOG_BITS_PER_WORD] & (1L << index)) != 0;
+  }
+
+  /**
+   * Gets value of a cell.
+   *
+   * @param row    vertical coordinate of cell (from -1 to number of rows).
+   * @param column horizontal coordinate of cell (from -1 to number of columns).
+   * @return value of cell.
+   */
+  public boolean get(int row, int column) {
+    assert row >= -1 && row <= rows : "get: invalid row";
+    assert column >= -1 && column <= columns : "get: invalid column";
+    return get(index(row, column));
+  }
+
+  /**
+   * Sets a cell to {@code true}.
+   *
+   * @param index index of cell in padded grid.
+   */
+  public void set(int index) {
+    setBit(index);
+  }
+
+  /**
+   * Sets a cell to {@code false}.
+   *
+   * @param index index of cell in padded grid.
+   */
+  public void clear(int index) {
+    words[index >>> LOG_BITS_PER_WORD] &= ~(1L << index);
+  }
+
+  /**
+   * Sets a cell within the grid to given value.
+   *
+   * @param row    vertical coordinate of cell.
+   * @param column horizontal coordinate of cell.
+   * @param value  new value of cell.
+   */
+  public void set(int row, int column, boolean value) {
+    assert row >= 0 && row < rows : "set: invalid row";
+    assert column >= 0 && column < columns : "set: invalid column";
+    if (value) {
+      set(index(row, column));
+    } else {
+      clear(index(row, column));
+    }
+  }
+
+  /**
+   * Sets all cells within the grid to {@code false}. Border is not modified.
+   */
+  public void clear() {
+    Arrays.fill(words, 0);
+    setBorder();
+  }
+
+  /**
+   * Sets cells within the grid whose indexes are in a given range to {@code false}. Border is not modified. Only
+   * words holding cells in range are written, so that different threads can clear disjoint ranges whose bounds are
+   * multiples of 64 concurrently.
+   *
+   * @param fromIndex index of first cell in range (inclusive).
+   * @param toIndex   index of last cell in range (exclusive).
+   */
+  public void clear(int fromIndex, int toIndex) {
+    assert fromIndex >= 0 && fromIndex <= toIndex && toIndex <= size() : "clear: invalid range";
+    if (fromIndex == toIndex) {
+      return;
+    }
+    var fromWord = fromIndex >>> LOG_BITS_PER_WORD;
+    var toWord = (toIndex - 1) >>> LOG_BITS_PER_WORD;
+    // shifts only take lower 6 bits of their distance into account
+    var firstWordMask = -1L << fromIndex;
+    var lastWordMask = -1L >>> -toIndex;
+    if (fromWord == toWord) {
+      words[fromWord] &= ~(firstWordMask & lastWordMask);
+    } else {
+      words[fromWord] &= ~firstWordMask;
+      Arrays.fill(words, fromWord + 1, toWord, 0);
+      words[toWord] &= ~lastWordMask;
+    }
+    if (border) {
+      for (int row = row(fromIndex); row <= row(toIndex - 1); row++) {
+        if (row < 0 || row == rows) {
+          for (int column = -1; column <= columns; column++) {
+            setBitInRange(index(row, column), fromIndex, toIndex);
+          }
+        } else {
+          setBitInRange(index(row, -1), fromIndex, toIndex);
+          setBitInRange(index(row, columns), fromIndex, toIndex);
+        }
+      }
+    }
+  }
+
+  private void setBitInRange(int index, int fromIndex, int toIndex) {
+    if (index >= fromIndex && index < toIndex) {
+      setBit(index);
+    }
+  }
+}
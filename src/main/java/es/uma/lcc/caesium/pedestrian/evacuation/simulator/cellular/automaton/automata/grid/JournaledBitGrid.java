@@ -0,0 +1,73 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid;
+
+import java.util.Arrays;
+
+/**
+ * Grid of boolean cells which records a journal of cells that have been set to {@code true}, so that clearing it only
+ * takes time proportional to number of such cells rather than to area of grid. This is the case for occupancy grids,
+ * where only cells occupied by pedestrians are set, which are usually much fewer than cells in scenario.
+ * <p>
+ * When journal grows longer than number of words storing the grid, clearing active tiles is cheaper, so journal is
+ * discarded until grid is cleared again.
+ */
+public class JournaledBitGrid extends TiledBitGrid {
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Indexes of cells set to {@code true} since grid was last cleared.
+   */
+  private int[] journal;
+  /**
+   * Number of entries in journal, or -1 if journal has been discarded.
+   */
+  private int journalLength;
+
+  /**
+   * Creates a new grid whose cells are all {@code false}.
+   *
+   * @param rows    number of rows in grid.
+   * @param columns number of columns in grid.
+   * @param border  value of sentinel cells surrounding grid.
+   */
+  public JournaledBitGrid(int rows, int columns, boolean border) {
+    super(rows, columns, border);
+    this.journal = new int[Math.min(INITIAL_CAPACITY, numberOfWords())];
+    this.journalLength = 0;
+  }
+
+  @Override
+  public void set(int index) {
+    if (journalLength >= 0 && !get(index)) {
+      if (journalLength == journal.length) {
+        if (journalLength >= numberOfWords()) {
+          // clearing whole grid is now cheaper
+          journalLength = -1;
+        } else {
+          journal = Arrays.copyOf(journal, Math.min(2 * journal.length, numberOfWords()));
+        }
+      }
+      if (journalLength >= 0) {
+        journal[journalLength++] = index;
+      }
+    }
+    super.set(index);
+  }
+
+  /**
+   * Sets all cells within the grid to {@code false}. Only cells in journal are cleared, unless journal was
+   * discarded, in which case active tiles are cleared.
+   */
+  @Override
+  public void clear() {
+    if (journalLength < 0) {
+      super.clear();
+    } else {
+      for (int i = 0; i < journalLength; i++) {
+        clear(journal[i]);
+        // all set cells are in journal, so their tiles are inactive now
+        deactivate(tile(journal[i]));
+      }
+    }
+    journalLength = 0;
+  }
+}
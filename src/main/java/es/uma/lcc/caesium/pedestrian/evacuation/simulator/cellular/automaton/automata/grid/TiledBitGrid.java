@@ -0,0 +1,135 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid;
+
+/**
+ * Grid of boolean cells which keeps track of active tiles, so that clearing it only takes time proportional to area
+ * of such tiles rather than to area of grid. Padded grid is split into square tiles of {@link #TILE_SIZE} cells per
+ * side, and a tile is active if some cell in it has been set to {@code true} since it was last cleared. This is the
+ * case for occupancy grids, where tiles far from any pedestrian are inactive, so that they become cheaper to clear as
+ * the scenario empties.
+ * <p>
+ * Rows of tiles are called bands. Different threads can concurrently set cells in, and clear, disjoint ranges of
+ * bands, as long as indexes of first cells in such ranges are multiples of 64, so that they do not share words.
+ */
+public class TiledBitGrid extends BitGrid {
+  private static final int LOG_TILE_SIZE = 5;
+  /**
+   * Number of cells along each side of a tile.
+   */
+  public static final int TILE_SIZE = 1 << LOG_TILE_SIZE;
+
+  /**
+   * Number of tiles in each band.
+   */
+  private final int tilesPerBand;
+  /**
+   * Whether each tile is active, in row-major order.
+   */
+  private final boolean[] isActive;
+
+  /**
+   * Creates a new grid whose cells are all {@code false}.
+   *
+   * @param rows    number of rows in grid.
+   * @param columns number of columns in grid.
+   * @param border  value of sentinel cells surrounding grid.
+   */
+  public TiledBitGrid(int rows, int columns, boolean border) {
+    super(rows, columns, border);
+    this.tilesPerBand = (stride() + TILE_SIZE - 1) >>> LOG_TILE_SIZE;
+    var numberOfBands = (rows + 2 + TILE_SIZE - 1) >>> LOG_TILE_SIZE;
+    this.isActive = new boolean[numberOfBands * tilesPerBand];
+  }
+
+  /**
+   * Number of tiles in padded grid.
+   *
+   * @return number of tiles in padded grid.
+   */
+  public int numberOfTiles() {
+    return isActive.length;
+  }
+
+  /**
+   * Tile containing a cell.
+   *
+   * @param index index of cell in padded grid.
+   * @return index of tile containing cell, in row-major order.
+   */
+  public int tile(int index) {
+    return ((index / stride()) >>> LOG_TILE_SIZE) * tilesPerBand + ((index % stride()) >>> LOG_TILE_SIZE);
+  }
+
+  /**
+   * Checks whether a tile is active.
+   *
+   * @param tile index of tile.
+   * @return {@code true} if some cell in tile has been set to {@code true} since tile was last cleared.
+   */
+  public boolean isActive(int tile) {
+    return isActive[tile];
+  }
+
+  /**
+   * Marks a tile as inactive, without clearing its cells. Should only be called once all cells in tile have been
+   * cleared.
+   *
+   * @param tile index of tile.
+   */
+  protected void deactivate(int tile) {
+    isActive[tile] = false;
+  }
+
+  @Override
+  public void set(int index) {
+    var tile = tile(index);
+    // only written once, so that threads setting cells in same band do not keep writing to it
+    if (!isActive[tile]) {
+      isActive[tile] = true;
+    }
+    super.set(index);
+  }
+
+  /**
+   * Sets all cells within the grid to {@code false}. Only active tiles are cleared. Border is not modified.
+   */
+  @Override
+  public void clear() {
+    clear(0, size());
+  }
+
+  /**
+   * Sets cells within the grid whose indexes are in a given range to {@code false}. Only active tiles in range are
+   * cleared. Range should consist of whole bands. Border is not modified.
+   *
+   * @param fromIndex index of first cell in range (inclusive). Should be first cell in a band.
+   * @param toIndex   index of last cell in range (exclusive). Should be first cell in a band or size of grid.
+   */
+  @Override
+  public void clear(int fromIndex, int toIndex) {
+    var cellsPerBand = TILE_SIZE * stride();
+    assert fromIndex % cellsPerBand == 0 : "clear: range should start at a band";
+    assert toIndex % cellsPerBand == 0 || toIndex == size() : "clear: range should end at a band";
+    for (int band = fromIndex / cellsPerBand; band * cellsPerBand < toIndex; band++) {
+      var firstTile = band * tilesPerBand;
+      var tile = 0;
+      while (tile < tilesPerBand) {
+        if (!isActive[firstTile + tile]) {
+          tile++;
+          continue;
+        }
+        // clear a run of consecutive active tiles
+        var firstTileInRun = tile;
+        while (tile < tilesPerBand && isActive[firstTile + tile]) {
+          isActive[firstTile + tile] = false;
+          tile++;
+        }
+        var fromColumn = firstTileInRun << LOG_TILE_SIZE;
+        var toColumn = Math.min(stride(), tile << LOG_TILE_SIZE);
+        var toRow = Math.min((band + 1) * TILE_SIZE, size() / stride());
+        for (int row = band * TILE_SIZE; row < toRow; row++) {
+          super.clear(row * stride() + fromColumn, row * stride() + toColumn);
+        }
+      }
+    }
+  }
+}
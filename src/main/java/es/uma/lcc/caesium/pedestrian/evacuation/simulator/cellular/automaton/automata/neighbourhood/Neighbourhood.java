@@ -6,6 +6,11 @@ import java.util.List;
 
 /**
  * Class for representing a neighbourhood relationship in a cellular automaton.
+ * <p>
+ * Besides methods returning lists of locations, a neighbourhood provides a primitive API where cells are identified
+ * by their index {@code row * columns + column} and neighbours are enumerated by direction. Directions are numbered
+ * from {@code 0} to {@code numberOfDirections() - 1}, in the same order as locations are returned by
+ * {@link #neighbours(int, int)}.
  *
  * @author Pepe Gallardo
  */
@@ -28,4 +33,36 @@ public interface Neighbourhood {
   default List<Location> neighbours(Location location) {
     return neighbours(location.row(), location.column());
   }
+
+  /**
+   * Number of directions in which a cell may have a neighbour.
+   *
+   * @return number of directions in which a cell may have a neighbour.
+   */
+  int numberOfDirections();
+
+  /**
+   * Vertical offset of neighbour in given direction.
+   *
+   * @param direction a direction.
+   * @return vertical offset of neighbour in given direction.
+   */
+  int rowOffset(int direction);
+
+  /**
+   * Horizontal offset of neighbour in given direction.
+   *
+   * @param direction a direction.
+   * @return horizontal offset of neighbour in given direction.
+   */
+  int columnOffset(int direction);
+
+  /**
+   * Returns index of neighbour of a cell in given direction.
+   *
+   * @param cell      index of cell.
+   * @param direction a direction.
+   * @return index of neighbour of cell in given direction or -1 if such neighbour lies outside the grid.
+   */
+  int neighbour(int cell, int direction);
 }
@@ -0,0 +1,107 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class for representing a neighbourhood defined by a fixed set of offsets. Flat offsets and a mask telling which
+ * borders of the grid each cell touches are computed once when the neighbourhood is created, so that no bounds
+ * checks or allocations are needed for enumerating neighbours.
+ */
+public abstract class OffsetNeighbourhood implements Neighbourhood {
+  /**
+   * Bits in border mask for a cell having a cell above, below, to the right and to the left of it.
+   */
+  private static final int NORTH = 1, SOUTH = 2, EAST = 4, WEST = 8;
+
+  protected final int rows, columns;
+  /**
+   * Vertical and horizontal offsets for each direction.
+   */
+  private final int[] rowOffsets, columnOffsets;
+  /**
+   * Difference between index of neighbour in each direction and index of cell.
+   */
+  private final int[] cellOffsets;
+  /**
+   * Borders required by each direction.
+   */
+  private final int[] requiredBorders;
+  /**
+   * Borders available for each cell.
+   */
+  private final byte[] borderMask;
+
+  /**
+   * Creates a neighbourhood for a scenario.
+   *
+   * @param rows          number of rows in scenario.
+   * @param columns       number of columns in scenario.
+   * @param rowOffsets    vertical offsets for each direction.
+   * @param columnOffsets horizontal offsets for each direction.
+   */
+  protected OffsetNeighbourhood(int rows, int columns, int[] rowOffsets, int[] columnOffsets) {
+    assert rowOffsets.length == columnOffsets.length : "OffsetNeighbourhood: offsets should have same length";
+    this.rows = rows;
+    this.columns = columns;
+    this.rowOffsets = rowOffsets.clone();
+    this.columnOffsets = columnOffsets.clone();
+
+    var numberOfDirections = rowOffsets.length;
+    this.cellOffsets = new int[numberOfDirections];
+    this.requiredBorders = new int[numberOfDirections];
+    for (int direction = 0; direction < numberOfDirections; direction++) {
+      var rowOffset = rowOffsets[direction];
+      var columnOffset = columnOffsets[direction];
+      assert Math.abs(rowOffset) <= 1 && Math.abs(columnOffset) <= 1 : "OffsetNeighbourhood: offsets should be -1, 0 or 1";
+      cellOffsets[direction] = rowOffset * columns + columnOffset;
+      requiredBorders[direction] =
+          (rowOffset > 0 ? NORTH : 0) | (rowOffset < 0 ? SOUTH : 0)
+              | (columnOffset > 0 ? EAST : 0) | (columnOffset < 0 ? WEST : 0);
+    }
+
+    this.borderMask = new byte[rows * columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        borderMask[i * columns + j] = (byte)
+            ((i < rows - 1 ? NORTH : 0) | (i > 0 ? SOUTH : 0)
+                | (j < columns - 1 ? EAST : 0) | (j > 0 ? WEST : 0));
+      }
+    }
+  }
+
+  @Override
+  public List<Location> neighbours(int row, int column) {
+    var neighbours = new ArrayList<Location>(rowOffsets.length);
+    var cell = row * columns + column;
+    for (int direction = 0; direction < rowOffsets.length; direction++) {
+      if (neighbour(cell, direction) >= 0) {
+        neighbours.add(new Location(row + rowOffsets[direction], column + columnOffsets[direction]));
+      }
+    }
+    return neighbours;
+  }
+
+  @Override
+  public int numberOfDirections() {
+    return rowOffsets.length;
+  }
+
+  @Override
+  public int rowOffset(int direction) {
+    return rowOffsets[direction];
+  }
+
+  @Override
+  public int columnOffset(int direction) {
+    return columnOffsets[direction];
+  }
+
+  @Override
+  public int neighbour(int cell, int direction) {
+    var required = requiredBorders[direction];
+    return (borderMask[cell] & required) == required ? cell + cellOffsets[direction] : -1;
+  }
+}
@@ -1,18 +1,16 @@
 package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood;
 
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
-import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Class for representing Von Neumann's neighbourhood in a cellular automaton.
  *
  * @author Pepe Gallardo
  */
-public class VonNeumannNeighbourhood implements Neighbourhood {
-  private final int rows, columns;
+public class VonNeumannNeighbourhood extends OffsetNeighbourhood {
+  // north, south, east, west
+  private static final int[] ROW_OFFSETS = {1, -1, 0, 0};
+  private static final int[] COLUMN_OFFSETS = {0, 0, 1, -1};
 
   /**
    * Creates a Von Neumann neighbourhood for a scenario.
@@ -21,8 +19,7 @@ public class VonNeumannNeighbourhood implements Neighbourhood {
    * @param columns number of columns in scenario.
    */
   public VonNeumannNeighbourhood(int rows, int columns) {
-    this.rows = rows;
-    this.columns = columns;
+    super(rows, columns, ROW_OFFSETS, COLUMN_OFFSETS);
   }
 
   /**
@@ -34,26 +31,4 @@ public class VonNeumannNeighbourhood implements Neighbourhood {
   public static VonNeumannNeighbourhood of(Scenario scenario) {
     return new VonNeumannNeighbourhood(scenario.getRows(), scenario.getColumns());
   }
-
-  @Override
-  public List<Location> neighbours(int row, int column) {
-    var neighbours = new ArrayList<Location>(4);
-    // north
-    if (row < rows - 1) {
-      neighbours.add(new Location(row + 1, column));
-    }
-    // south
-    if (row > 0) {
-      neighbours.add(new Location(row - 1, column));
-    }
-    // east
-    if (column < columns - 1) {
-      neighbours.add(new Location(row, column + 1));
-    }
-    // west
-    if (column > 0) {
-      neighbours.add(new Location(row, column - 1));
-    }
-    return neighbours;
-  }
 }
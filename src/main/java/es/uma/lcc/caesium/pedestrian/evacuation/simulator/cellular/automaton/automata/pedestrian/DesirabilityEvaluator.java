@@ -0,0 +1,211 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.FloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.BitGrid;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.TiledBitGrid;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class for evaluating desirability of moving to a cell. Desirability of a cell is
+ * {@code exp(fieldAttractionBias * field - crowdRepulsion / (1 + n))}, where {@code n} is number of reachable cells
+ * in its neighbourhood. It is computed as product of an attraction factor {@code exp(fieldAttractionBias * field)},
+ * which only depends on cell, and a repulsion factor {@code exp(-crowdRepulsion / (1 + n))}, which only depends on
+ * {@code n}, so that both factors can be tabulated.
+ * <p>
+ * Such product agrees with exponential of sum only to within rounding, so when sampling a movement a different cell
+ * may occasionally be chosen than if desirability were computed as a single exponential.
+ * <p>
+ * Pedestrians with same field attraction bias and crowd repulsion share a {@link Profile} holding their tables.
+ * Repulsion factors are tabulated for every profile. Attraction factors take a {@code double} per cell, so they are
+ * only tabulated for a limited number of profiles, and are otherwise computed for each move. Their tables are split
+ * into square tiles as in {@link TiledBitGrid}, which are only allocated when a cell in them is first needed, so that
+ * memory is proportional to area visited by pedestrians rather than to area of grid. Either way, same operations are
+ * performed, so desirabilities do not depend on whether they are tabulated.
+ */
+public class DesirabilityEvaluator {
+  private static final int LOG_TILE_SIZE = Integer.numberOfTrailingZeros(TiledBitGrid.TILE_SIZE);
+  private static final int TILE_MASK = TiledBitGrid.TILE_SIZE - 1;
+  /**
+   * Opaque access to attraction factors in a tile, so that a factor is read or written atomically even if
+   * {@code double} writes are split in two.
+   */
+  private static final VarHandle FACTOR = MethodHandles.arrayElementVarHandle(double[].class);
+
+  /**
+   * Static floor field from which attraction factors are computed.
+   */
+  protected final FloorField floorField;
+  /**
+   * Grid defining layout of cells (see {@link BitGrid#index(int, int)}).
+   */
+  protected final BitGrid grid;
+  /**
+   * Maximum number of reachable cells in neighbourhood of a cell.
+   */
+  protected final int numberOfDirections;
+  /**
+   * Maximum number of profiles whose attraction factors are tabulated.
+   */
+  protected final int maximumNumberOfTabulatedProfiles;
+  /**
+   * Number of tiles in each row of tiles, and in padded grid.
+   */
+  private final int tilesPerBand, numberOfTiles;
+  /**
+   * Interned profiles, by field attraction bias and crowd repulsion.
+   */
+  private final Map<Key, Profile> profiles;
+  private int numberOfTabulatedProfiles;
+
+  private record Key(double fieldAttractionBias, double crowdRepulsion) {
+  }
+
+  /**
+   * Creates a new desirability evaluator.
+   *
+   * @param floorField                       static floor field from which attraction factors are computed.
+   * @param grid                             grid defining layout of cells.
+   * @param numberOfDirections               maximum number of reachable cells in neighbourhood of a cell.
+   * @param maximumNumberOfTabulatedProfiles maximum number of profiles whose attraction factors are tabulated.
+   */
+  public DesirabilityEvaluator(FloorField floorField, BitGrid grid, int numberOfDirections
+      , int maximumNumberOfTabulatedProfiles) {
+    if (maximumNumberOfTabulatedProfiles < 0) {
+      throw new IllegalArgumentException("DesirabilityEvaluator: maximum number of tabulated profiles cannot be " +
+          "negative");
+    }
+    this.floorField = floorField;
+    this.grid = grid;
+    this.numberOfDirections = numberOfDirections;
+    this.maximumNumberOfTabulatedProfiles = maximumNumberOfTabulatedProfiles;
+    this.tilesPerBand = (grid.stride() + TiledBitGrid.TILE_SIZE - 1) >>> LOG_TILE_SIZE;
+    var numberOfBands = (grid.size() / grid.stride() + TiledBitGrid.TILE_SIZE - 1) >>> LOG_TILE_SIZE;
+    this.numberOfTiles = numberOfBands * tilesPerBand;
+    this.profiles = new HashMap<>();
+    this.numberOfTabulatedProfiles = 0;
+  }
+
+  /**
+   * Gets profile for pedestrians described by given parameters. Pedestrians with same field attraction bias and
+   * crowd repulsion get same profile.
+   *
+   * @param parameters parameters describing a pedestrian.
+   * @return profile for pedestrians described by {@code parameters}.
+   */
+  public Profile profile(PedestrianParameters parameters) {
+    return profiles.computeIfAbsent(new Key(parameters.fieldAttractionBias(), parameters.crowdRepulsion()), key -> {
+      var isTabulated = numberOfTabulatedProfiles < maximumNumberOfTabulatedProfiles;
+      if (isTabulated) {
+        numberOfTabulatedProfiles++;
+      }
+      return new Profile(key.fieldAttractionBias(), key.crowdRepulsion(), isTabulated);
+    });
+  }
+
+  /**
+   * Number of distinct profiles created so far.
+   *
+   * @return number of distinct profiles created so far.
+   */
+  public int numberOfProfiles() {
+    return profiles.size();
+  }
+
+  /**
+   * Tables of desirability factors shared by pedestrians with same field attraction bias and crowd repulsion.
+   */
+  public final class Profile {
+    private final double fieldAttractionBias;
+    /**
+     * Repulsion factor for each number of reachable cells in neighbourhood.
+     */
+    private final double[] repulsionFactor;
+    /**
+     * Attraction factor for each cell, by tile and position of cell within tile, or 0 if it has not been computed
+     * yet. A tile is {@code null} until some cell in it is needed, and whole array is {@code null} if attraction
+     * factors are not tabulated. Several threads choosing movements concurrently may compute same factor, but they
+     * all store same value. Tiles are published atomically, so only one of them is kept if several threads allocate
+     * same tile, and factors are accessed through {@link #FACTOR}, so a thread reads either 0 or a whole factor.
+     */
+    private final AtomicReferenceArray<double[]> attractionFactor;
+
+    private Profile(double fieldAttractionBias, double crowdRepulsion, boolean isTabulated) {
+      this.fieldAttractionBias = fieldAttractionBias;
+      this.repulsionFactor = new double[numberOfDirections + 1];
+      for (int numberOfReachable = 0; numberOfReachable <= numberOfDirections; numberOfReachable++) {
+        repulsionFactor[numberOfReachable] = Math.exp(-crowdRepulsion / (1 + numberOfReachable));
+      }
+      if (isTabulated) {
+        // tiles are allocated lazily, as only cells close to pedestrians are ever needed
+        this.attractionFactor = new AtomicReferenceArray<>(numberOfTiles);
+      } else {
+        this.attractionFactor = null;
+      }
+    }
+
+    /**
+     * Checks whether attraction factors of this profile are tabulated.
+     *
+     * @return {@code true} if attraction factors of this profile are tabulated.
+     */
+    public boolean isTabulated() {
+      return attractionFactor != null;
+    }
+
+    private double attractionFactor(int row, int column) {
+      return Math.exp(fieldAttractionBias * floorField.getField(row, column));
+    }
+
+    /**
+     * Desirability of moving to a cell, as product of its attraction and repulsion factors.
+     *
+     * @param cell              index of cell in grids of scenario.
+     * @param numberOfReachable number of reachable cells in neighbourhood of cell.
+     * @return desirability of moving to cell.
+     */
+    public double desirability(int cell, int numberOfReachable) {
+      double attraction;
+      if (attractionFactor == null) {
+        attraction = attractionFactor(grid.row(cell), grid.column(cell));
+      } else {
+        var paddedRow = cell / grid.stride();
+        var paddedColumn = cell % grid.stride();
+        var tileIndex = (paddedRow >>> LOG_TILE_SIZE) * tilesPerBand + (paddedColumn >>> LOG_TILE_SIZE);
+        var tile = attractionFactor.getAcquire(tileIndex);
+        if (tile == null) {
+          var newTile = new double[TiledBitGrid.TILE_SIZE * TiledBitGrid.TILE_SIZE];
+          // another thread may have allocated same tile in the meantime
+          tile = attractionFactor.compareAndExchange(tileIndex, null, newTile);
+          if (tile == null) {
+            tile = newTile;
+          }
+        }
+        var offset = ((paddedRow & TILE_MASK) << LOG_TILE_SIZE) | (paddedColumn & TILE_MASK);
+        attraction = (double) FACTOR.getOpaque(tile, offset);
+        if (attraction == 0) {
+          // not computed yet, or so small that it underflowed, in which case computing it again yields same value
+          attraction = attractionFactor(grid.row(cell), grid.column(cell));
+          FACTOR.setOpaque(tile, offset, attraction);
+        }
+      }
+      return attraction * repulsionFactor[numberOfReachable];
+    }
+
+    /**
+     * Desirability of moving to a cell.
+     *
+     * @param row               vertical coordinate of cell.
+     * @param column            horizontal coordinate of cell.
+     * @param numberOfReachable number of reachable cells in neighbourhood of cell.
+     * @return desirability of moving to cell.
+     */
+    public double desirability(int row, int column, int numberOfReachable) {
+      return desirability(grid.index(row, column), numberOfReachable);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Class for randomly choosing a movement of a pedestrian among cells in its neighbourhood. Each candidate cell is
+ * chosen with probability proportional to its desirability shifted so that least desirable candidate has a small
+ * positive weight. Candidates are kept in fixed-size scratch buffers, which are reused for every movement, and
+ * chosen by a cumulative scan over them, so that choosing a movement performs no allocations.
+ * <p>
+ * A sampler holds state of the movement being chosen, so it should not be shared by concurrent threads.
+ */
+public final class MovementSampler {
+  /**
+   * Maximum number of candidates, as all neighbours of a cell are within one row and column of it.
+   */
+  public static final int CAPACITY = 9;
+  /**
+   * Minimum desirability of a cell so that it is never 0.
+   */
+  private static final double DESIRABILITY_EPSILON = 0.00001;
+
+  /**
+   * Candidate cells and their desirabilities.
+   */
+  private final int[] candidateCell;
+  private final double[] candidateDesirability;
+  private int numberOfCandidates;
+  private double minDesirability;
+
+  /**
+   * Creates a new sampler with no candidates.
+   */
+  public MovementSampler() {
+    this.candidateCell = new int[CAPACITY];
+    this.candidateDesirability = new double[CAPACITY];
+    clear();
+  }
+
+  /**
+   * Removes all candidates from this sampler.
+   */
+  public void clear() {
+    numberOfCandidates = 0;
+    minDesirability = Double.MAX_VALUE;
+  }
+
+  /**
+   * Adds a candidate cell.
+   *
+   * @param cell         index of candidate cell.
+   * @param desirability desirability of moving to candidate cell.
+   */
+  public void add(int cell, double desirability) {
+    assert numberOfCandidates < CAPACITY : "add: too many candidates";
+    candidateCell[numberOfCandidates] = cell;
+    candidateDesirability[numberOfCandidates] = desirability;
+    numberOfCandidates++;
+    if (desirability < minDesirability) {
+      minDesirability = desirability;
+    }
+  }
+
+  /**
+   * Number of candidates added since this sampler was last cleared.
+   *
+   * @return number of candidates in this sampler.
+   */
+  public int size() {
+    return numberOfCandidates;
+  }
+
+  private double shiftedDesirability(int candidate) {
+    return DESIRABILITY_EPSILON + candidateDesirability[candidate] - minDesirability;
+  }
+
+  /**
+   * Chooses randomly one of the candidates according to discrete distribution of their shifted desirabilities.
+   * Draws exactly one random number if there are candidates, and none otherwise.
+   *
+   * @param random random generator used to choose a candidate.
+   * @return index of chosen cell or -1 if there are no candidates.
+   */
+  public int sample(RandomGenerator random) {
+    if (numberOfCandidates == 0) {
+      return -1;
+    }
+    var totalDesirability = 0.0;
+    for (int k = 0; k < numberOfCandidates; k++) {
+      totalDesirability += shiftedDesirability(k);
+    }
+    var threshold = random.nextDouble(totalDesirability);
+    var accumulatedDesirability = 0.0;
+    for (int k = 0; k < numberOfCandidates; k++) {
+      accumulatedDesirability += shiftedDesirability(k);
+      if (threshold < accumulatedDesirability) {
+        return candidateCell[k];
+      }
+    }
+    // only reachable because of rounding errors
+    return candidateCell[numberOfCandidates - 1];
+  }
+}
@@ -1,16 +1,15 @@
 package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian;
 
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory.Trajectory;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Canvas;
 
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.StringJoiner;
-
-import static es.uma.lcc.caesium.statistics.Random.random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A pedestrian in the simulation.
@@ -19,9 +18,10 @@ import static es.uma.lcc.caesium.statistics.Random.random;
  */
 public class Pedestrian {
   /**
-   * Class counter to generate unique identifiers for pedestrians.
+   * Class counter to generate unique identifiers for pedestrians. Atomic as pedestrians may be created
+   * concurrently by several automata.
    */
-  protected static int nextIdentifier = 0;
+  protected static final AtomicInteger nextIdentifier = new AtomicInteger(0);
   /**
    * Each pedestrian has a unique identifier.
    */
@@ -46,6 +46,10 @@ public class Pedestrian {
    * Parameters describing this pedestrian.
    */
   protected final PedestrianParameters parameters;
+  /**
+   * Tables for evaluating desirability of moving to a cell, shared with pedestrians having same parameters.
+   */
+  protected final DesirabilityEvaluator.Profile profile;
   /**
    * Automaton where this pedestrian is running.
    */
@@ -53,30 +57,7 @@ public class Pedestrian {
   /**
    * Path followed by pedestrian in scenario during simulation.
    */
-  protected final List<Location> path;
-
-  /**
-   * A tentative movement consists of a location (where we should move) and a desirability (the higher the
-   * desirability the higher the willingness to move to such location). We do not use the term probability because
-   * sum of all desirabilities do not have to be 1.
-   *
-   * @param location     where we should move.
-   * @param desirability willing to move to such location
-   */
-  protected record TentativeMovement(Location location, double desirability) implements Comparable<TentativeMovement> {
-    /**
-     * Compares this tentative movement to another one according to their desirabilities.
-     *
-     * @param that another tentative movement.
-     * @return less than 0 if {@code this.desirability < that.desirability},
-     * greater than 0 if {@code this.desirability > that.desirability},
-     * 0 if {@code this.desirability == that.desirability}.
-     */
-    @Override
-    public int compareTo(TentativeMovement that) {
-      return Double.compare(this.desirability, that.desirability);
-    }
-  }
+  protected final Trajectory path;
 
   /**
    * Constructs a new pedestrian.
@@ -87,14 +68,24 @@ public class Pedestrian {
    * @param automaton  automaton where this pedestrian evolves.
    */
   public Pedestrian(int row, int column, PedestrianParameters parameters, CellularAutomaton automaton) {
-    this.identifier = nextIdentifier++;
+    this.identifier = newIdentifier();
     this.row = row;
     this.column = column;
     this.parameters = parameters;
     this.automaton = automaton;
+    this.profile = automaton.getDesirabilityEvaluator().profile(parameters);
     this.numberOfSteps = 0;
-    this.path = new ArrayList<>();
-    this.path.add(new Location(row, column));
+    this.path = automaton.getParameters().trajectorySupplier().get();
+    this.path.add(row, column);
+  }
+
+  /**
+   * Generates a new unique identifier for a pedestrian.
+   *
+   * @return a new unique identifier for a pedestrian.
+   */
+  public static int newIdentifier() {
+    return nextIdentifier.getAndIncrement();
   }
 
   /**
@@ -136,9 +127,18 @@ public class Pedestrian {
   /**
    * Path followed by pedestrian in scenario during simulation.
    *
-   * @return path followed by pedestrian in scenario during simulation.
+   * @return a new list with path followed by pedestrian in scenario during simulation.
    */
   public List<Location> getPath() {
+    return path.toList();
+  }
+
+  /**
+   * Trajectory recording path followed by pedestrian in scenario during simulation.
+   *
+   * @return trajectory recording path followed by pedestrian in scenario during simulation.
+   */
+  public Trajectory getTrajectory() {
     return path;
   }
 
@@ -152,7 +152,7 @@ public class Pedestrian {
     this.row = row;
     this.column = column;
     this.numberOfSteps++;
-    this.path.add(new Location(row, column));
+    this.path.add(row, column);
   }
 
   /**
@@ -168,7 +168,7 @@ public class Pedestrian {
    * Make the pedestrian to stay in its current cell.
    */
   public void doNotMove() {
-    this.path.add(new Location(row, column));
+    this.path.add(row, column);
   }
 
   /**
@@ -200,46 +200,32 @@ public class Pedestrian {
 
 
   /**
-   * Minimum desirability of a cell so that it is never 0.
-   */
-  private static final double DESIRABILITY_EPSILON = 0.00001;
-
-  /**
-   * Computes transition desirabilities for reachable cells in the neighbourhood on this pedestrian. (the higher the
-   * desirability the higher the willingness to move to such location). We do not use the term probability because
-   * sum of all desirabilities do not have to be 1.
+   * Adds reachable cells in the neighbourhood of this pedestrian to a sampler, each one with its transition
+   * desirability (the higher the desirability the higher the willingness to move to such location). We do not use
+   * the term probability because sum of all desirabilities do not have to be 1.
    *
-   * @return List of tentative movements that this pedestrian can make, each one with associate desirability.
+   * @param sampler sampler where cells this pedestrian can move to are added.
    */
-  private List<TentativeMovement> computeTransitionDesirabilities() {
-    var scenario = automaton.getScenario();
-    var neighbours = automaton.neighbours(row, column);
+  private void computeTransitionDesirabilities(MovementSampler sampler) {
+    var neighbourhood = automaton.getNeighbourhood();
+    var numberOfDirections = neighbourhood.numberOfDirections();
+    var columns = automaton.getColumns();
+    var cell = row * columns + column;
 
-    var movements = new ArrayList<TentativeMovement>(neighbours.size());
-    double minDesirability = Double.MAX_VALUE;
-    for (var neighbour : neighbours) {
-      if (automaton.isCellReachable(neighbour)) {
-        // count reachable cells around new location
-        var numberOfReachableCellsAround = 0;
-        for (var around : automaton.neighbours(neighbour)) {
-          if (automaton.isCellReachable(around)) {
-            numberOfReachableCellsAround++;
-          }
-        }
+    sampler.clear();
+    for (int direction = 0; direction < numberOfDirections; direction++) {
+      var neighbour = neighbourhood.neighbour(cell, direction);
+      if (neighbour >= 0 && automaton.isCellReachable(neighbour / columns, neighbour % columns)) {
+        // reachable cells around new location are counted incrementally by automaton
+        var numberOfReachableCellsAround =
+            automaton.numberOfReachableNeighbours(neighbour / columns, neighbour % columns);
 
-        var attraction = parameters.fieldAttractionBias() * scenario.getStaticFloorField().getField(neighbour);
-        var repulsion = parameters.crowdRepulsion() / (1 + numberOfReachableCellsAround);
-        var desirability = Math.exp(attraction - repulsion);
-        movements.add(new TentativeMovement(neighbour, desirability));
-        if (desirability < minDesirability)
-        	minDesirability = desirability;
+        // attraction to exits and repulsion of crowded locations
+        var desirability = profile.desirability(neighbour / columns, neighbour % columns
+            , numberOfReachableCellsAround);
+        sampler.add(neighbour, desirability);
       }
     }
-    var gradientMovements = new ArrayList<TentativeMovement>(neighbours.size());
-    for (TentativeMovement m: movements)
-    	gradientMovements.add(new TentativeMovement(m.location(), DESIRABILITY_EPSILON + m.desirability()-minDesirability));
-
-    return gradientMovements;
   }
 
   /**
@@ -248,17 +234,19 @@ public class Pedestrian {
    * @return {@code Optional.empty} if no move is available or {@code Optional(m)} if move {@code m} was chosen.
    */
   public Optional<Location> chooseMovement() {
-    if (random.bernoulli(parameters.velocityPercent())) {
+    var random = automaton.getRandomGenerator();
+    if (random.nextDouble() < parameters.velocityPercent()) {
       // try to move at this step to respect pedestrian speed
-      var movements = computeTransitionDesirabilities();
-      if (movements.isEmpty()) {
+      var sampler = automaton.getMovementSampler();
+      computeTransitionDesirabilities(sampler);
+      // choose one movement according to discrete distribution of desirabilities
+      var neighbour = sampler.sample(random);
+      if (neighbour < 0) {
         // cannot make a movement
         return Optional.empty();
       }
-
-      // choose one movement according to discrete distribution of desirabilities
-      var chosen = random.discrete(movements, TentativeMovement::desirability);
-      return Optional.of(chosen.location);
+      var columns = automaton.getColumns();
+      return Optional.of(new Location(neighbour / columns, neighbour % columns));
     } else {
       // do not move at this step to respect pedestrian speed
       return Optional.empty();
@@ -273,10 +261,25 @@ public class Pedestrian {
    * @param outlineColor outline color for drawing of pedestrian.
    */
   public void paint(Canvas canvas, Color fillColor, Color outlineColor) {
+    paint(canvas, row, column, parameters.velocityPercent(), fillColor, outlineColor);
+  }
+
+  /**
+   * Paints a pedestrian in GUI representing the simulation.
+   *
+   * @param canvas          Graphical canvas where pedestrian should be drawn.
+   * @param row             row in scenario where pedestrian is located.
+   * @param column          column in scenario where pedestrian is located.
+   * @param velocityPercent pedestrian's velocity as percent of maximum velocity.
+   * @param fillColor       fill color for drawing pedestrian.
+   * @param outlineColor    outline color for drawing of pedestrian.
+   */
+  public static void paint(Canvas canvas, int row, int column, double velocityPercent, Color fillColor,
+                           Color outlineColor) {
     var graphics2D = canvas.graphics2D();
-    var r = (int) (fillColor.getRed() * parameters.velocityPercent());
-    var g = (int) (fillColor.getGreen() * parameters.velocityPercent());
-    var b = (int) (fillColor.getBlue() * parameters.velocityPercent());
+    var r = (int) (fillColor.getRed() * velocityPercent);
+    var g = (int) (fillColor.getGreen() * velocityPercent);
+    var b = (int) (fillColor.getBlue() * velocityPercent);
     graphics2D.setColor(new Color(r, g, b));
     graphics2D.fillOval(column, row, 1, 1);
     graphics2D.setColor(outlineColor);
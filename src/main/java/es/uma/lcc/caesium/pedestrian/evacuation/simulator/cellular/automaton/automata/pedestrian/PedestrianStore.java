@@ -0,0 +1,312 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compact storage for pedestrians as a structure of arrays. Instead of one heap object per pedestrian, each attribute
+ * is stored in a primitive array (column) indexed by the slot of the pedestrian, which is the order in which it was
+ * added. Pedestrians within the scenario are tracked by a list of slots which can be shuffled in place.
+ */
+public class PedestrianStore {
+  /**
+   * Policy for removing pedestrians evacuating the scenario from list of pedestrians within scenario.
+   */
+  public enum Removal {
+    /**
+     * Remaining pedestrians keep their relative order. List is compacted after each time step.
+     */
+    ORDERED,
+    /**
+     * Last pedestrian in list replaces removed one. Cheaper, but processing order (and hence trajectories for a given
+     * seed) differs from {@link
+     * es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton}.
+     */
+    SWAP_WITH_LAST
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Policy for removing evacuees.
+   */
+  protected final Removal removal;
+  /**
+   * Number of pedestrians in this store.
+   */
+  protected int size;
+  /**
+   * Columns for identifier, location, number of steps and exit time of each pedestrian.
+   */
+  protected int[] identifier, row, column, numberOfSteps, exitTimeSteps;
+  /**
+   * Column for velocity of each pedestrian. Remaining parameters only affect desirabilities, so they are kept in
+   * desirability profiles (see {@link DesirabilityEvaluator#profile(PedestrianParameters)}) rather than here.
+   */
+  protected double[] velocityPercent;
+  /**
+   * Slots of pedestrians within the scenario. With {@link Removal#ORDERED} policy, evacuees are marked with -1 until
+   * list is compacted.
+   */
+  protected int[] inScenario;
+  protected int numberOfInScenario, numberOfRemovedInScenario;
+  /**
+   * Slots of pedestrians that have evacuated the scenario, in order of evacuation.
+   */
+  protected int[] outOfScenario;
+  protected int numberOfOutOfScenario;
+
+  /**
+   * Creates an empty store.
+   *
+   * @param removal policy for removing pedestrians evacuating the scenario.
+   */
+  public PedestrianStore(Removal removal) {
+    this.removal = removal;
+    this.identifier = new int[INITIAL_CAPACITY];
+    this.row = new int[INITIAL_CAPACITY];
+    this.column = new int[INITIAL_CAPACITY];
+    this.numberOfSteps = new int[INITIAL_CAPACITY];
+    this.exitTimeSteps = new int[INITIAL_CAPACITY];
+    this.velocityPercent = new double[INITIAL_CAPACITY];
+    this.inScenario = new int[INITIAL_CAPACITY];
+    this.outOfScenario = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Removes all pedestrians from this store.
+   */
+  public void clear() {
+    size = 0;
+    numberOfInScenario = 0;
+    numberOfRemovedInScenario = 0;
+    numberOfOutOfScenario = 0;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > identifier.length) {
+      var newCapacity = Math.max(capacity, 2 * identifier.length);
+      identifier = Arrays.copyOf(identifier, newCapacity);
+      row = Arrays.copyOf(row, newCapacity);
+      column = Arrays.copyOf(column, newCapacity);
+      numberOfSteps = Arrays.copyOf(numberOfSteps, newCapacity);
+      exitTimeSteps = Arrays.copyOf(exitTimeSteps, newCapacity);
+      velocityPercent = Arrays.copyOf(velocityPercent, newCapacity);
+      inScenario = Arrays.copyOf(inScenario, newCapacity);
+      outOfScenario = Arrays.copyOf(outOfScenario, newCapacity);
+    }
+  }
+
+  /**
+   * Adds a new pedestrian within the scenario.
+   *
+   * @param row        row of scenario where new pedestrian is placed.
+   * @param column     column of scenario where new pedestrian is placed.
+   * @param parameters parameters describing new pedestrian.
+   * @return slot of new pedestrian.
+   */
+  public int add(int row, int column, PedestrianParameters parameters) {
+    ensureCapacity(size + 1);
+    var slot = size++;
+    this.identifier[slot] = Pedestrian.newIdentifier();
+    this.row[slot] = row;
+    this.column[slot] = column;
+    this.numberOfSteps[slot] = 0;
+    this.exitTimeSteps[slot] = -1;
+    this.velocityPercent[slot] = parameters.velocityPercent();
+    this.inScenario[numberOfInScenario++] = slot;
+    return slot;
+  }
+
+  /**
+   * Number of pedestrians in this store.
+   *
+   * @return number of pedestrians in this store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Unique identifier corresponding to a pedestrian.
+   *
+   * @param slot slot of pedestrian.
+   * @return unique identifier corresponding to pedestrian.
+   */
+  public int identifier(int slot) {
+    return identifier[slot];
+  }
+
+  /**
+   * Row in scenario where a pedestrian is currently located.
+   *
+   * @param slot slot of pedestrian.
+   * @return row in scenario where pedestrian is currently located.
+   */
+  public int row(int slot) {
+    return row[slot];
+  }
+
+  /**
+   * Column in scenario where a pedestrian is currently located.
+   *
+   * @param slot slot of pedestrian.
+   * @return column in scenario where pedestrian is currently located.
+   */
+  public int column(int slot) {
+    return column[slot];
+  }
+
+  /**
+   * Number of steps currently taken by a pedestrian.
+   *
+   * @param slot slot of pedestrian.
+   * @return number of steps currently taken by pedestrian.
+   */
+  public int numberOfSteps(int slot) {
+    return numberOfSteps[slot];
+  }
+
+  /**
+   * Number of discrete time steps elapsed when a pedestrian exited the scenario.
+   *
+   * @param slot slot of pedestrian.
+   * @return number of discrete time steps elapsed when pedestrian exited the scenario, or -1 if it is still within.
+   */
+  public int exitTimeSteps(int slot) {
+    return exitTimeSteps[slot];
+  }
+
+  /**
+   * Checks whether a pedestrian is still within the scenario.
+   *
+   * @param slot slot of pedestrian.
+   * @return {@code true} if pedestrian has not evacuated the scenario.
+   */
+  public boolean isInScenario(int slot) {
+    return exitTimeSteps[slot] < 0;
+  }
+
+  /**
+   * Velocity of a pedestrian as percent of maximum velocity.
+   *
+   * @param slot slot of pedestrian.
+   * @return velocity of pedestrian as percent of maximum velocity.
+   */
+  public double velocityPercent(int slot) {
+    return velocityPercent[slot];
+  }
+
+  /**
+   * Moves a pedestrian to a new cell.
+   *
+   * @param slot   slot of pedestrian.
+   * @param row    row of destination cell.
+   * @param column column of destination cell.
+   */
+  public void moveTo(int slot, int row, int column) {
+    this.row[slot] = row;
+    this.column[slot] = column;
+    this.numberOfSteps[slot]++;
+  }
+
+  /**
+   * Number of pedestrians within the scenario.
+   *
+   * @return number of pedestrians within the scenario.
+   */
+  public int numberOfInScenario() {
+    return numberOfInScenario - numberOfRemovedInScenario;
+  }
+
+  /**
+   * Number of entries in list of pedestrians within the scenario. Until list is compacted with
+   * {@link Removal#ORDERED} policy, this includes entries of pedestrians that have just evacuated.
+   *
+   * @return number of entries in list of pedestrians within the scenario.
+   */
+  public int inScenarioLength() {
+    return numberOfInScenario;
+  }
+
+  /**
+   * Slot of pedestrian at given position in list of pedestrians within the scenario.
+   *
+   * @param position position in list.
+   * @return slot of pedestrian at given position, or -1 if it evacuated and list has not been compacted yet.
+   */
+  public int inScenario(int position) {
+    return inScenario[position];
+  }
+
+  /**
+   * Randomly permutes in place list of pedestrians within the scenario by using Fisher-Yates algorithm.
+   *
+   * @param random random generator to use.
+   */
+  public void shuffleInScenario(RandomGenerator random) {
+    for (int i = numberOfInScenario; i > 1; i--) {
+      var j = random.nextInt(i);
+      var temp = inScenario[i - 1];
+      inScenario[i - 1] = inScenario[j];
+      inScenario[j] = temp;
+    }
+  }
+
+  /**
+   * Records that pedestrian at given position in list of pedestrians within the scenario has evacuated.
+   *
+   * @param position  position in list of pedestrian evacuating.
+   * @param timeSteps number of discrete time steps elapsed when pedestrian exited the scenario.
+   * @return {@code true} if another pedestrian, still to be processed in this time step, now takes that position.
+   */
+  public boolean evacuate(int position, int timeSteps) {
+    var slot = inScenario[position];
+    exitTimeSteps[slot] = timeSteps;
+    outOfScenario[numberOfOutOfScenario++] = slot;
+    if (removal == Removal.SWAP_WITH_LAST) {
+      inScenario[position] = inScenario[--numberOfInScenario];
+      return position < numberOfInScenario;
+    } else {
+      inScenario[position] = -1;
+      numberOfRemovedInScenario++;
+      return false;
+    }
+  }
+
+  /**
+   * Removes entries of evacuees from list of pedestrians within the scenario, preserving relative order of
+   * remaining ones. Should be called at the end of each time step.
+   */
+  public void compactInScenario() {
+    if (numberOfRemovedInScenario > 0) {
+      var numberOfRemaining = 0;
+      for (int k = 0; k < numberOfInScenario; k++) {
+        if (inScenario[k] >= 0) {
+          inScenario[numberOfRemaining++] = inScenario[k];
+        }
+      }
+      numberOfInScenario = numberOfRemaining;
+      numberOfRemovedInScenario = 0;
+    }
+  }
+
+  /**
+   * Number of pedestrians that have evacuated the scenario.
+   *
+   * @return number of pedestrians that have evacuated the scenario.
+   */
+  public int numberOfOutOfScenario() {
+    return numberOfOutOfScenario;
+  }
+
+  /**
+   * Slot of pedestrian at given position in list of evacuees.
+   *
+   * @param position position in list (evacuees are in order of evacuation).
+   * @return slot of pedestrian at given position.
+   */
+  public int outOfScenario(int position) {
+    return outOfScenario[position];
+  }
+}
@@ -6,15 +6,28 @@ import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Domain;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Shape;
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Class for importing a domain as an scenario.
+ * <p>
+ * Shapes are rasterized by recursively subdividing grid into blocks of cells and discarding blocks that a shape does
+ * not intersect, so that each shape is only tested against cells close to it rather than against every cell in
+ * grid. Grid is split into bands of rows which are rasterized concurrently.
  *
  * @author Pepe Gallardo
  */
 public class DomainImporter {
+  /**
+   * Number of rows in each band of grid rasterized concurrently.
+   */
+  private static final int ROWS_PER_BAND = 32;
+  /**
+   * Margin (relative to dimension of a cell) by which blocks of cells are enlarged, so that rounding errors never
+   * make a block smaller than union of its cells.
+   */
+  private static final double BLOCK_MARGIN = 1e-6;
 
   /**
    * Resulting scenario after importation.
@@ -22,23 +35,43 @@ public class DomainImporter {
   protected Scenario scenario;
 
   /**
-   * Checks whether a rectangle intersects with any shape provided in list.
-   * @param shapes list of shapes.
-   * @param bottom vertical bottom coordinate of rectangle.
-   * @param left horizontal left coordinate of rectangle.
-   * @param height height of rectangle.
-   * @param width width of rectangle.
-   * @return {@code true} if rectangle intersects with any shape.
+   * Marks in a mask cells intersecting a shape within a block of cells.
+   *
+   * @param shape         shape to rasterize.
+   * @param mask          mask of cells indexed by {@code row * columns + column}.
+   * @param columns       number of columns in grid.
+   * @param cellDimension dimension (in meters) of side of a grid cell.
+   * @param bottomRow     first row in block.
+   * @param topRow        row past last one in block.
+   * @param leftColumn    first column in block.
+   * @param rightColumn   column past last one in block.
    */
-  static protected boolean intersectsAny(List<? extends Shape> shapes, double bottom, double left,
-                                         double height, double width) {
-    var intersects = false;
-    var it = shapes.iterator();
-    while(!intersects && it.hasNext()) {
-      var shape = it.next();
-      intersects = shape.intersects(left, bottom, width, height);
+  private static void rasterize(Shape shape, boolean[] mask, int columns, double cellDimension
+      , int bottomRow, int topRow, int leftColumn, int rightColumn) {
+    var height = topRow - bottomRow;
+    var width = rightColumn - leftColumn;
+    if (height == 1 && width == 1) {
+      // same test as for a single cell, so that result does not depend on subdivision
+      if (shape.intersects(leftColumn * cellDimension, bottomRow * cellDimension, cellDimension, cellDimension)) {
+        mask[bottomRow * columns + leftColumn] = true;
+      }
+      return;
+    }
+    var margin = BLOCK_MARGIN * cellDimension;
+    if (!shape.intersects(leftColumn * cellDimension - margin, bottomRow * cellDimension - margin
+        , width * cellDimension + 2 * margin, height * cellDimension + 2 * margin)) {
+      // shape cannot intersect any cell in block
+      return;
+    }
+    if (height >= width) {
+      var middleRow = bottomRow + height / 2;
+      rasterize(shape, mask, columns, cellDimension, bottomRow, middleRow, leftColumn, rightColumn);
+      rasterize(shape, mask, columns, cellDimension, middleRow, topRow, leftColumn, rightColumn);
+    } else {
+      var middleColumn = leftColumn + width / 2;
+      rasterize(shape, mask, columns, cellDimension, bottomRow, topRow, leftColumn, middleColumn);
+      rasterize(shape, mask, columns, cellDimension, bottomRow, topRow, middleColumn, rightColumn);
     }
-    return intersects;
   }
 
   /**
@@ -67,17 +100,30 @@ public class DomainImporter {
       obstacles.add(obstacle.getShape());
     }
 
+    // each band only writes its own rows of masks
+    var isExit = new boolean[rows * columns];
+    var isBlocked = new boolean[rows * columns];
+    var numberOfBands = (rows + ROWS_PER_BAND - 1) / ROWS_PER_BAND;
+    IntStream.range(0, numberOfBands).parallel().forEach(band -> {
+      var bottomRow = band * ROWS_PER_BAND;
+      var topRow = Math.min(rows, bottomRow + ROWS_PER_BAND);
+      for (var access : accesses) {
+        rasterize(access, isExit, columns, cellDimension, bottomRow, topRow, 0, columns);
+      }
+      for (var obstacle : obstacles) {
+        rasterize(obstacle, isBlocked, columns, cellDimension, bottomRow, topRow, 0, columns);
+      }
+    });
+
+    // scenario is not thread-safe, so cells are set sequentially in row-major order
     for (var i = 0; i < rows; i++) {
       for (var j = 0; j < columns; j++) {
-        var bottom = i * cellDimension;
-        var left = j * cellDimension;
-
         var cell = new Rectangle(i, j, 1, 1);
 
-        if(intersectsAny(accesses, bottom, left, cellDimension, cellDimension)) {
+        if (isExit[i * columns + j]) {
           scenario.setExit(cell);
         }
-        if(intersectsAny(obstacles, bottom, left, cellDimension, cellDimension)) {
+        if (isBlocked[i * columns + j]) {
           scenario.setBlock(cell);
         }
       }
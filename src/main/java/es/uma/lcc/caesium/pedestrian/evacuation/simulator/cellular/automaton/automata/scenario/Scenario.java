@@ -2,13 +2,13 @@ package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.au
 
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.FloorField;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.ManhattanStaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.grid.BitGrid;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Canvas;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui.Palette;
 import es.uma.lcc.caesium.pedestrian.evacuation.simulator.environment.Domain;
 
-import java.awt.*;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
@@ -37,14 +37,10 @@ public class Scenario {
   protected final Rectangle boundingBox;
 
   /**
-   * A cell in scenario can either be blocked, clear or it can be an exit.
+   * A cell in scenario can either be blocked, clear or it can be an exit. Grids of cells comprising this scenario,
+   * telling which ones are blocked and which ones are exits. Sentinel cells bordering the scenario are blocked.
    */
-  protected enum CellStatus {Blocked, Clear, Exit}
-
-  /**
-   * Grid of cells comprising this scenario.
-   */
-  protected final CellStatus[][] cell;
+  protected final BitGrid blocked, exit;
   /**
    * Exits are rectangular. Set comprising rectangles corresponding to all exits.
    */
@@ -82,10 +78,8 @@ public class Scenario {
 
     this.boundingBox = new Rectangle(0, 0, rows, columns);
 
-    this.cell = new CellStatus[rows][columns];
-    for (CellStatus[] row : cell) {
-      Arrays.fill(row, CellStatus.Clear);
-    }
+    this.blocked = new BitGrid(rows, columns, true);
+    this.exit = new BitGrid(rows, columns, false);
 
     exits = new HashSet<>();
     blocks = new HashSet<>();
@@ -142,7 +136,8 @@ public class Scenario {
 
     for (int i = rectangle.bottom(); i <= rectangle.top(); i++) {
       for (int j = rectangle.left(); j <= rectangle.right(); j++) {
-        cell[i][j] = CellStatus.Blocked;
+        blocked.set(i, j, true);
+        exit.set(i, j, false);
       }
     }
   }
@@ -164,7 +159,7 @@ public class Scenario {
    * @return {@code true} if grid cell is blocked in this scenario.
    */
   public boolean isBlocked(int row, int column) {
-    return cell[row][column] == CellStatus.Blocked;
+    return blocked.get(row, column);
   }
 
   /**
@@ -177,6 +172,16 @@ public class Scenario {
     return isBlocked(location.row(), location.column());
   }
 
+  /**
+   * Gets grid telling which cells are blocked in this scenario. Sentinel cells surrounding grid are blocked, so
+   * neighbours of cells within the scenario can be checked without bounds checks.
+   *
+   * @return grid telling which cells are blocked in this scenario. It should not be modified.
+   */
+  public BitGrid getBlockedGrid() {
+    return blocked;
+  }
+
   /**
    * Sets a region defined by provided rectangle as an exit in scenario.
    *
@@ -190,7 +195,8 @@ public class Scenario {
 
     for (int i = rectangle.bottom(); i <= rectangle.top(); i++) {
       for (int j = rectangle.left(); j <= rectangle.right(); j++) {
-        cell[i][j] = CellStatus.Exit;
+        exit.set(i, j, true);
+        blocked.set(i, j, false);
       }
     }
   }
@@ -212,7 +218,7 @@ public class Scenario {
    * @return {@code true} if grid cell is an exit in this scenario.
    */
   public boolean isExit(int row, int column) {
-    return cell[row][column] == CellStatus.Exit;
+    return exit.get(row, column);
   }
 
   /**
@@ -225,11 +231,14 @@ public class Scenario {
     return isExit(location.row(), location.column());
   }
 
-  private static final Color
-      darkGreen = new Color(41, 175, 52),
-      lightGreen = new Color(0, 201, 20),
-      darkRed = new Color(142, 5, 0),
-      lightRed = new Color(179, 6, 0);
+  /**
+   * Gets grid telling which cells are exits in this scenario. Sentinel cells surrounding grid are not exits.
+   *
+   * @return grid telling which cells are exits in this scenario. It should not be modified.
+   */
+  public BitGrid getExitGrid() {
+    return exit;
+  }
 
   /**
    * Paints scenario in GUI representing the simulation.
@@ -238,10 +247,10 @@ public class Scenario {
    */
   public void paint(Canvas canvas) {
     for (var exit : exits) {
-      exit.paint(canvas, lightGreen, darkGreen);
+      exit.paint(canvas, Palette.EXIT_FILL, Palette.EXIT_OUTLINE);
     }
     for (var block : blocks) {
-      block.paint(canvas, lightRed, darkRed);
+      block.paint(canvas, Palette.BLOCK_FILL, Palette.BLOCK_OUTLINE);
     }
   }
 
@@ -0,0 +1,110 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Conversions between traces in JSON format (as produced by {@link Trace#toJson()} or {@link JsonTraceWriter}) and
+ * traces in binary format (as produced by {@link BinaryTraceWriter}). Files whose name ends with {@code .gz} are
+ * gzip compressed.
+ */
+public final class BinaryTraceConverter {
+  private BinaryTraceConverter() {
+  }
+
+  /**
+   * Converts a binary trace file to JSON format. Snapshots are streamed, so whole trace is never in memory.
+   *
+   * @param binaryPath path of binary trace file.
+   * @param jsonPath   path of JSON trace file to write.
+   * @throws IOException if an I/O error occurs.
+   */
+  public static void toJson(Path binaryPath, Path jsonPath) throws IOException {
+    try (var reader = new BinaryTraceReader(binaryPath)
+         ; var writer = JsonTraceWriter.of(jsonPath, jsonPath.getFileName().toString().endsWith(".gz")
+        , reader.domain())) {
+      writer.begin(reader.cellDimension());
+      for (int t = 0; t < reader.numberOfTimeSteps(); t++) {
+        var timeStep = reader.firstTimeStep() + t;
+        writer.snapshot(timeStep, reader.crowd(timeStep));
+      }
+    }
+  }
+
+  /**
+   * Converts a JSON trace file to binary format.
+   *
+   * @param jsonPath   path of JSON trace file.
+   * @param binaryPath path of binary trace file to write.
+   * @throws IOException   if an I/O error occurs.
+   * @throws JsonException if JSON file is not valid.
+   */
+  public static void fromJson(Path jsonPath, Path binaryPath) throws IOException, JsonException {
+    Trace trace;
+    var inputStream = Files.newInputStream(jsonPath);
+    if (jsonPath.getFileName().toString().endsWith(".gz")) {
+      inputStream = new GZIPInputStream(inputStream);
+    }
+    try (var reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+      trace = Trace.fromJson((JsonObject) Jsoner.deserialize(reader));
+    }
+    fromTrace(trace, binaryPath);
+  }
+
+  /**
+   * Writes a trace in binary format.
+   *
+   * @param trace      trace to write.
+   * @param binaryPath path of binary trace file to write.
+   * @throws IOException if an I/O error occurs.
+   */
+  public static void fromTrace(Trace trace, Path binaryPath) throws IOException {
+    // pedestrians in any snapshot must be declared in advance
+    var identifiers = new TreeSet<Integer>();
+    var domain = 1; // todo currently there is only a single domain
+    for (var snapshot : trace.snapshots()) {
+      for (var pedestrian : snapshot.crowd()) {
+        identifiers.add(pedestrian.id());
+        domain = pedestrian.location().domain();
+      }
+    }
+
+    var cellDimension = trace.cellDimension();
+    try (var writer = new BinaryTraceWriter(binaryPath
+        , identifiers.stream().mapToInt(Integer::intValue).toArray(), domain)) {
+      writer.begin(cellDimension);
+      for (var snapshot : trace.snapshots()) {
+        var crowd = snapshot.crowd().clone();
+        Arrays.sort(crowd, Comparator.comparingInt(Pedestrian::id));
+        writer.snapshot(snapshot.timestamp(), new TraceSink.Crowd() {
+          @Override
+          public int size() {
+            return crowd.length;
+          }
+
+          @Override
+          public void forEach(TraceSink.PedestrianConsumer consumer) {
+            for (var pedestrian : crowd) {
+              var coordinates = pedestrian.location().coordinates();
+              consumer.accept(pedestrian.id(), (int) Math.floor(coordinates.y() / cellDimension)
+                  , (int) Math.floor(coordinates.x() / cellDimension));
+            }
+          }
+        });
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+/**
+ * Layout of binary trace files. All values are big-endian:
+ * <pre>
+ *   int    MAGIC
+ *   int    VERSION
+ *   double cell dimension
+ *   int    domain
+ *   int    number of pedestrians (N)
+ *   int    number of time steps (T)
+ *   int    first time step (F)
+ *   int[N] identifiers of pedestrians, in increasing order
+ *   T records, one per time step from F to F + T - 1, each one with N entries (one per pedestrian, in same order as
+ *   identifiers):
+ *     short row
+ *     short column
+ * </pre>
+ * Pedestrians that are not within the scenario at a time step have {@link #ABSENT} as row and column. As all records
+ * have the same width, record for any time step can be located in constant time.
+ */
+final class BinaryTraceFormat {
+  static final int MAGIC = 0x43415452; // "CATR"
+  static final int VERSION = 2;
+  static final short ABSENT = -1;
+
+  static final int CELL_DIMENSION_OFFSET = 8;
+  static final int DOMAIN_OFFSET = 16;
+  static final int NUMBER_OF_PEDESTRIANS_OFFSET = 20;
+  static final int NUMBER_OF_TIME_STEPS_OFFSET = 24;
+  static final int FIRST_TIME_STEP_OFFSET = 28;
+  static final int IDENTIFIERS_OFFSET = 32;
+
+  /**
+   * Bytes taken by each pedestrian in a record.
+   */
+  static final int ENTRY_SIZE = 2 * Short.BYTES;
+
+  private BinaryTraceFormat() {
+  }
+
+  static long headerSize(int numberOfPedestrians) {
+    return IDENTIFIERS_OFFSET + (long) Integer.BYTES * numberOfPedestrians;
+  }
+
+  static int recordSize(int numberOfPedestrians) {
+    return ENTRY_SIZE * numberOfPedestrians;
+  }
+}
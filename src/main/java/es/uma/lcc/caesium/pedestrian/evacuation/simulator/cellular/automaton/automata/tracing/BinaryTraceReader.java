@@ -0,0 +1,266 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Coordinates;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Location;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Snapshot;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import static es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.BinaryTraceFormat.*;
+
+/**
+ * Reader for traces in binary format (see {@link BinaryTraceFormat}). File is memory-mapped, so that location of any
+ * pedestrian at any time step is accessed in constant time without reading the whole trace. Time steps stored in file
+ * range from {@link #firstTimeStep()} to {@code firstTimeStep() + numberOfTimeSteps() - 1}.
+ */
+public class BinaryTraceReader implements Closeable {
+  private final FileChannel channel;
+  private final double cellDimension;
+  private final int domain;
+  private final int[] identifiers;
+  private final int firstTimeStep;
+  private final int numberOfTimeSteps;
+  private final int recordSize;
+  /**
+   * Records are mapped in segments holding a whole number of them, as a single mapping cannot exceed 2GB.
+   */
+  private final MappedByteBuffer[] segments;
+  private final int recordsPerSegment;
+
+  /**
+   * Opens a binary trace file.
+   *
+   * @param path path of file.
+   * @throws IOException if file cannot be read or is not a binary trace.
+   */
+  public BinaryTraceReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      var fixedHeader = ByteBuffer.allocate(IDENTIFIERS_OFFSET);
+      readFully(fixedHeader, 0);
+      if (fixedHeader.getInt(0) != MAGIC || fixedHeader.getInt(4) != VERSION) {
+        throw new IOException("BinaryTraceReader: not a binary trace file");
+      }
+      this.cellDimension = fixedHeader.getDouble(CELL_DIMENSION_OFFSET);
+      this.domain = fixedHeader.getInt(DOMAIN_OFFSET);
+      var numberOfPedestrians = fixedHeader.getInt(NUMBER_OF_PEDESTRIANS_OFFSET);
+      this.numberOfTimeSteps = fixedHeader.getInt(NUMBER_OF_TIME_STEPS_OFFSET);
+      this.firstTimeStep = fixedHeader.getInt(FIRST_TIME_STEP_OFFSET);
+
+      var identifiersBuffer = ByteBuffer.allocate(Integer.BYTES * numberOfPedestrians);
+      readFully(identifiersBuffer, IDENTIFIERS_OFFSET);
+      this.identifiers = new int[numberOfPedestrians];
+      identifiersBuffer.flip().asIntBuffer().get(identifiers);
+
+      this.recordSize = recordSize(numberOfPedestrians);
+      var recordsOffset = headerSize(numberOfPedestrians);
+      if (channel.size() < recordsOffset + (long) recordSize * numberOfTimeSteps) {
+        throw new IOException("BinaryTraceReader: truncated binary trace file");
+      }
+      this.recordsPerSegment = recordSize == 0 ? 1 : Math.max(1, Integer.MAX_VALUE / recordSize);
+      var numberOfSegments = (numberOfTimeSteps + recordsPerSegment - 1) / recordsPerSegment;
+      this.segments = new MappedByteBuffer[numberOfSegments];
+      for (int segment = 0; segment < numberOfSegments; segment++) {
+        var firstRecord = (long) segment * recordsPerSegment;
+        var numberOfRecords = Math.min(recordsPerSegment, numberOfTimeSteps - firstRecord);
+        segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY
+            , recordsOffset + firstRecord * recordSize, numberOfRecords * recordSize);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("BinaryTraceReader: truncated binary trace file");
+      }
+    }
+  }
+
+  /**
+   * Dimension (in meters) of side of cells in scenario.
+   *
+   * @return dimension of side of cells in scenario.
+   */
+  public double cellDimension() {
+    return cellDimension;
+  }
+
+  /**
+   * Domain where pedestrians are located.
+   *
+   * @return domain where pedestrians are located.
+   */
+  public int domain() {
+    return domain;
+  }
+
+  /**
+   * Number of pedestrians in trace, including those that are not within the scenario at some time steps.
+   *
+   * @return number of pedestrians in trace.
+   */
+  public int numberOfPedestrians() {
+    return identifiers.length;
+  }
+
+  /**
+   * Number of time steps stored in trace.
+   *
+   * @return number of time steps stored in trace.
+   */
+  public int numberOfTimeSteps() {
+    return numberOfTimeSteps;
+  }
+
+  /**
+   * Time step of first record in trace.
+   *
+   * @return time step of first record in trace.
+   */
+  public int firstTimeStep() {
+    return firstTimeStep;
+  }
+
+  /**
+   * Identifier of a pedestrian.
+   *
+   * @param pedestrian index of pedestrian (pedestrians are sorted by identifier).
+   * @return identifier of pedestrian.
+   */
+  public int identifier(int pedestrian) {
+    return identifiers[pedestrian];
+  }
+
+  private int record(int timeStep) {
+    var record = timeStep - firstTimeStep;
+    if (record < 0 || record >= numberOfTimeSteps) {
+      throw new IndexOutOfBoundsException("BinaryTraceReader: invalid time step " + timeStep);
+    }
+    return record;
+  }
+
+  private MappedByteBuffer segment(int timeStep) {
+    return segments[record(timeStep) / recordsPerSegment];
+  }
+
+  private int entryPosition(int timeStep, int pedestrian) {
+    if (pedestrian < 0 || pedestrian >= identifiers.length) {
+      throw new IndexOutOfBoundsException("BinaryTraceReader: invalid pedestrian " + pedestrian);
+    }
+    return (record(timeStep) % recordsPerSegment) * recordSize + pedestrian * ENTRY_SIZE;
+  }
+
+  /**
+   * Row where a pedestrian is located at a time step.
+   *
+   * @param timeStep   time step.
+   * @param pedestrian index of pedestrian.
+   * @return row where pedestrian is located, or -1 if it is not within the scenario.
+   */
+  public int row(int timeStep, int pedestrian) {
+    return segment(timeStep).getShort(entryPosition(timeStep, pedestrian));
+  }
+
+  /**
+   * Column where a pedestrian is located at a time step.
+   *
+   * @param timeStep   time step.
+   * @param pedestrian index of pedestrian.
+   * @return column where pedestrian is located, or -1 if it is not within the scenario.
+   */
+  public int column(int timeStep, int pedestrian) {
+    return segment(timeStep).getShort(entryPosition(timeStep, pedestrian) + Short.BYTES);
+  }
+
+  /**
+   * Checks whether a pedestrian is within the scenario at a time step.
+   *
+   * @param timeStep   time step.
+   * @param pedestrian index of pedestrian.
+   * @return {@code true} if pedestrian is within the scenario at time step.
+   */
+  public boolean isPresent(int timeStep, int pedestrian) {
+    return row(timeStep, pedestrian) != ABSENT;
+  }
+
+  /**
+   * Pedestrians within the scenario at a time step.
+   *
+   * @param timeStep time step.
+   * @return pedestrians within the scenario at time step, as a view over mapped file.
+   */
+  public TraceSink.Crowd crowd(int timeStep) {
+    var segment = segment(timeStep);
+    var recordPosition = (record(timeStep) % recordsPerSegment) * recordSize;
+    return new TraceSink.Crowd() {
+      @Override
+      public int size() {
+        var size = 0;
+        for (int pedestrian = 0; pedestrian < identifiers.length; pedestrian++) {
+          if (segment.getShort(recordPosition + pedestrian * ENTRY_SIZE) != ABSENT) {
+            size++;
+          }
+        }
+        return size;
+      }
+
+      @Override
+      public void forEach(TraceSink.PedestrianConsumer consumer) {
+        for (int pedestrian = 0; pedestrian < identifiers.length; pedestrian++) {
+          var position = recordPosition + pedestrian * ENTRY_SIZE;
+          var row = segment.getShort(position);
+          if (row != ABSENT) {
+            consumer.accept(identifiers[pedestrian], row, segment.getShort(position + Short.BYTES));
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Snapshot of pedestrians at a time step, as in {@link Trace}.
+   *
+   * @param timeStep time step.
+   * @return snapshot of pedestrians at time step.
+   */
+  public Snapshot snapshot(int timeStep) {
+    var crowd = new ArrayList<Pedestrian>();
+    crowd(timeStep).forEach((identifier, row, column) ->
+        crowd.add(new Pedestrian(identifier
+            , new Location(domain
+                , new Coordinates(column * cellDimension + cellDimension / 2
+                    , row * cellDimension + cellDimension / 2)))));
+    return new Snapshot(timeStep, crowd.toArray(new Pedestrian[0]));
+  }
+
+  /**
+   * Reads whole trace into memory.
+   *
+   * @return trace stored in file.
+   */
+  public Trace toTrace() {
+    var snapshots = new Snapshot[numberOfTimeSteps];
+    for (int t = 0; t < numberOfTimeSteps; t++) {
+      snapshots[t] = snapshot(firstTimeStep + t);
+    }
+    return new Trace(cellDimension, snapshots);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,165 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.BinaryTraceFormat.*;
+
+/**
+ * Trace sink writing a trace in a compact binary format (see {@link BinaryTraceFormat}) as simulation runs. Each
+ * pedestrian takes 4 bytes per time step.
+ * <p>
+ * As records have a fixed width, set of pedestrians must be known in advance: either provided when creating the
+ * writer, or taken from first snapshot received (all pedestrians must be within the scenario at that time).
+ * Likewise, records are positional, so time step of first snapshot received is stored in header and following
+ * snapshots must be for consecutive time steps.
+ */
+public class BinaryTraceWriter implements TraceSink {
+  private final FileChannel channel;
+  private final int domain;
+  private double cellDimension;
+  private int[] identifiers;
+  private ByteBuffer record;
+  private int firstTimeStep;
+  private int numberOfTimeSteps;
+  private boolean hasBegun;
+
+  /**
+   * Creates a new binary trace writer for a file, taking pedestrians from first snapshot received.
+   *
+   * @param path path of file.
+   * @throws IOException if file cannot be created.
+   */
+  public BinaryTraceWriter(Path path) throws IOException {
+    this(path, null, 1); // todo currently there is only a single domain
+  }
+
+  /**
+   * Creates a new binary trace writer for a file.
+   *
+   * @param path        path of file.
+   * @param identifiers identifiers of all pedestrians in trace, or {@code null} to take them from first snapshot
+   *                    received.
+   * @param domain      domain where pedestrians are located.
+   * @throws IOException if file cannot be created.
+   */
+  public BinaryTraceWriter(Path path, int[] identifiers, int domain) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE
+        , StandardOpenOption.TRUNCATE_EXISTING);
+    this.identifiers = identifiers == null ? null : identifiers.clone();
+    if (this.identifiers != null) {
+      Arrays.sort(this.identifiers);
+    }
+    this.domain = domain;
+    this.hasBegun = false;
+  }
+
+  @Override
+  public void begin(double cellDimension) {
+    this.cellDimension = cellDimension;
+    this.firstTimeStep = 0;
+    this.numberOfTimeSteps = 0;
+    this.hasBegun = true;
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private void writeHeader() throws IOException {
+    var header = ByteBuffer.allocate((int) headerSize(identifiers.length));
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putDouble(cellDimension);
+    header.putInt(domain);
+    header.putInt(identifiers.length);
+    header.putInt(numberOfTimeSteps);
+    header.putInt(firstTimeStep);
+    for (var identifier : identifiers) {
+      header.putInt(identifier);
+    }
+    header.flip();
+    channel.position(0);
+    writeFully(header);
+  }
+
+  /**
+   * Appends a record for a time step.
+   *
+   * @param timeStep time step of snapshot. Should be next one after that of previous snapshot, if any.
+   * @param crowd    pedestrians within the scenario, sorted by identifier.
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public void snapshot(int timeStep, Crowd crowd) throws IOException {
+    if (!hasBegun) {
+      throw new IllegalStateException("snapshot: begin should be called first");
+    }
+    if (record != null && timeStep != firstTimeStep + numberOfTimeSteps) {
+      throw new IllegalArgumentException("snapshot: time step " + timeStep + " does not follow previous one "
+          + (firstTimeStep + numberOfTimeSteps - 1));
+    }
+    if (record == null) {
+      firstTimeStep = timeStep;
+      if (identifiers == null) {
+        var firstIdentifiers = new int[crowd.size()];
+        var index = new int[]{0};
+        crowd.forEach((identifier, row, column) -> firstIdentifiers[index[0]++] = identifier);
+        identifiers = firstIdentifiers;
+      }
+      writeHeader();
+      record = ByteBuffer.allocate(recordSize(identifiers.length));
+    }
+
+    // crowd is sorted by identifier, so entries can be matched by merging both sequences
+    record.clear();
+    var next = new int[]{0};
+    crowd.forEach((identifier, row, column) -> {
+      if (row > Short.MAX_VALUE || column > Short.MAX_VALUE) {
+        throw new IllegalArgumentException("snapshot: scenario is too large for binary trace format");
+      }
+      var index = next[0];
+      while (index < identifiers.length && identifiers[index] < identifier) {
+        record.putShort(ABSENT).putShort(ABSENT);
+        index++;
+      }
+      if (index == identifiers.length || identifiers[index] != identifier) {
+        throw new IllegalStateException("snapshot: pedestrian " + identifier + " was not declared in trace");
+      }
+      record.putShort((short) row).putShort((short) column);
+      next[0] = index + 1;
+    });
+    for (int index = next[0]; index < identifiers.length; index++) {
+      record.putShort(ABSENT).putShort(ABSENT);
+    }
+    record.flip();
+    writeFully(record);
+    numberOfTimeSteps++;
+  }
+
+  /**
+   * Records final number of time steps in header and closes file.
+   *
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (hasBegun) {
+        if (identifiers == null) {
+          // no snapshot was received
+          identifiers = new int[0];
+        }
+        writeHeader();
+      }
+    } finally {
+      channel.close();
+    }
+  }
+}
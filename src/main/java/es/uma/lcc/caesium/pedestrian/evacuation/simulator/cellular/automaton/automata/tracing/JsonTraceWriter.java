@@ -0,0 +1,156 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import com.github.cliftonlabs.json_simple.Jsoner;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Coordinates;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Location;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Snapshot;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Trace sink writing a trace in JSON format as simulation runs. Output follows the same schema as
+ * {@link Trace#toJson()}, but only one snapshot is kept in memory at a time.
+ */
+public class JsonTraceWriter implements TraceSink {
+  private static final int BUFFER_SIZE = 1 << 16;
+  /**
+   * Keys used by {@link Trace#toJson()} for dimension of cells and array of snapshots.
+   */
+  private static final String CELL_DIMENSION_KEY = "cellDimension";
+  private static final String SNAPSHOTS_KEY = "snapshots";
+
+  private final Writer writer;
+  private final int domain;
+  private double cellDimension;
+  /**
+   * Whether {@link #begin(double)} has been called and JSON text has not been completed yet.
+   */
+  private boolean isOpen;
+  private boolean isFirstSnapshot;
+
+  /**
+   * Creates a new JSON trace writer.
+   *
+   * @param writer destination of JSON text. It will be closed when this trace writer is closed.
+   */
+  public JsonTraceWriter(Writer writer) {
+    this(writer, 1); // todo currently there is only a single domain
+  }
+
+  /**
+   * Creates a new JSON trace writer.
+   *
+   * @param writer destination of JSON text. It will be closed when this trace writer is closed.
+   * @param domain domain where pedestrians are located.
+   */
+  public JsonTraceWriter(Writer writer, int domain) {
+    this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+    this.domain = domain;
+    this.isOpen = false;
+  }
+
+  /**
+   * Creates a new JSON trace writer for a file.
+   *
+   * @param path path of file.
+   * @param gzip if {@code true} file is compressed in gzip format.
+   * @return a new JSON trace writer for file.
+   * @throws IOException if file cannot be created.
+   */
+  public static JsonTraceWriter of(Path path, boolean gzip) throws IOException {
+    return of(path, gzip, 1); // todo currently there is only a single domain
+  }
+
+  /**
+   * Creates a new JSON trace writer for a file. Missing parent directories of file are created.
+   *
+   * @param path   path of file.
+   * @param gzip   if {@code true} file is compressed in gzip format.
+   * @param domain domain where pedestrians are located.
+   * @return a new JSON trace writer for file.
+   * @throws IOException if file cannot be created.
+   */
+  public static JsonTraceWriter of(Path path, boolean gzip, int domain) throws IOException {
+    var directory = path.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    var outputStream = Files.newOutputStream(path);
+    if (gzip) {
+      outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+    }
+    return new JsonTraceWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), domain);
+  }
+
+  /**
+   * Creates a new JSON trace writer for a file. File is compressed in gzip format if its name ends with
+   * {@code .gz}.
+   *
+   * @param path path of file.
+   * @return a new JSON trace writer for file.
+   * @throws IOException if file cannot be created.
+   */
+  public static JsonTraceWriter of(Path path) throws IOException {
+    return of(path, path.getFileName().toString().endsWith(".gz"));
+  }
+
+  @Override
+  public void begin(double cellDimension) throws IOException {
+    this.cellDimension = cellDimension;
+    // snapshots are written as elements of array, which is closed by close()
+    writer.write('{');
+    writer.write(Jsoner.serialize(CELL_DIMENSION_KEY));
+    writer.write(':');
+    writer.write(Jsoner.serialize(cellDimension));
+    writer.write(',');
+    writer.write(Jsoner.serialize(SNAPSHOTS_KEY));
+    writer.write(":[");
+    isOpen = true;
+    isFirstSnapshot = true;
+  }
+
+  @Override
+  public void snapshot(int timeStep, Crowd crowd) throws IOException {
+    if (!isOpen) {
+      throw new IllegalStateException("snapshot: begin should be called first");
+    }
+    var pedestrians = new Pedestrian[crowd.size()];
+    var index = new int[]{0};
+    crowd.forEach((identifier, row, column) ->
+        pedestrians[index[0]++] = new Pedestrian(identifier
+            , new Location(domain
+                , new Coordinates(column * cellDimension + cellDimension / 2
+                    , row * cellDimension + cellDimension / 2))));
+    if (!isFirstSnapshot) {
+      writer.write(',');
+    }
+    writer.write(new Snapshot(timeStep, pedestrians).toJson().toJson());
+    isFirstSnapshot = false;
+  }
+
+  /**
+   * Completes JSON text and closes underlying writer.
+   *
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (isOpen) {
+        writer.write("]}");
+        isOpen = false;
+      }
+    } finally {
+      writer.close();
+    }
+  }
+}
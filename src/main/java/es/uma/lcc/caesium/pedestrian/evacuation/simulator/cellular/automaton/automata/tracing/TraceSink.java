@@ -0,0 +1,63 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for destinations receiving trace of a simulation as it runs, instead of materializing the whole trace in
+ * memory. Before each discrete time step, automaton sends a snapshot of pedestrians within the scenario, so that
+ * snapshots received are the same as those in {@link
+ * es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton#getTrace()}.
+ */
+public interface TraceSink extends Closeable {
+  /**
+   * Functional interface for visiting pedestrians in a snapshot.
+   */
+  @FunctionalInterface
+  interface PedestrianConsumer {
+    /**
+     * Visits a pedestrian in a snapshot.
+     *
+     * @param identifier unique identifier of pedestrian.
+     * @param row        row in scenario where pedestrian is located.
+     * @param column     column in scenario where pedestrian is located.
+     */
+    void accept(int identifier, int row, int column);
+  }
+
+  /**
+   * Pedestrians within the scenario at a discrete time step.
+   */
+  interface Crowd {
+    /**
+     * Number of pedestrians in crowd.
+     *
+     * @return number of pedestrians in crowd.
+     */
+    int size();
+
+    /**
+     * Visits all pedestrians in crowd, in increasing order of identifier.
+     *
+     * @param consumer visitor for each pedestrian.
+     */
+    void forEach(PedestrianConsumer consumer);
+  }
+
+  /**
+   * Called once before any snapshot is received.
+   *
+   * @param cellDimension dimension in meters of cells in scenario.
+   * @throws IOException if an I/O error occurs.
+   */
+  void begin(double cellDimension) throws IOException;
+
+  /**
+   * Receives a snapshot of pedestrians within the scenario.
+   *
+   * @param timeStep discrete time step of snapshot.
+   * @param crowd    pedestrians within the scenario. Only valid during this call.
+   * @throws IOException if an I/O error occurs.
+   */
+  void snapshot(int timeStep, Crowd crowd) throws IOException;
+}
@@ -0,0 +1,43 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Trajectory storing row and column of each location in a growable array of ints.
+ */
+public class ArrayTrajectory implements Trajectory {
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Row and column of location {@code t} are stored at {@code 2 * t} and {@code 2 * t + 1}.
+   */
+  private int[] locations;
+  private int size;
+
+  public ArrayTrajectory() {
+    this.locations = new int[2 * INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+  @Override
+  public void add(int row, int column) {
+    if (2 * size == locations.length) {
+      locations = Arrays.copyOf(locations, 2 * locations.length);
+    }
+    locations[2 * size] = row;
+    locations[2 * size + 1] = column;
+    size++;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(LocationConsumer consumer) {
+    for (int t = 0; t < size; t++) {
+      consumer.accept(t, locations[2 * t], locations[2 * t + 1]);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Compact trajectory that only stores first location explicitly. Each subsequent location is encoded relative to
+ * previous one in a growable array of bytes:
+ * <ul>
+ *   <li>{@code 1nnnnnnn}: pedestrian stayed in same cell for {@code n + 1} time steps.</li>
+ *   <li>{@code 00000aaa}: pedestrian moved to adjacent cell in direction {@code a}.</li>
+ *   <li>{@code 01aaabbb}: pedestrian moved in direction {@code a} and then in direction {@code b}.</li>
+ * </ul>
+ * Hence, moving pedestrians take 4 bits per time step and waiting ones take at most 8 bits every 128 time steps.
+ * Consecutive locations must be the same or adjacent cells (as in Moore's neighbourhood).
+ */
+public class DeltaEncodedTrajectory implements Trajectory {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int WAIT = 0x80, PAIR = 0x40;
+  private static final int MAXIMUM_WAIT_CODE = 0x7F;
+
+  // offsets for each direction code
+  private static final int[] ROW_OFFSETS = {-1, -1, -1, 0, 0, 1, 1, 1};
+  private static final int[] COLUMN_OFFSETS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+  private int firstRow, firstColumn, lastRow, lastColumn;
+  private int size;
+  private byte[] codes;
+  private int numberOfCodes;
+
+  public DeltaEncodedTrajectory() {
+    this.codes = new byte[INITIAL_CAPACITY];
+    this.size = 0;
+    this.numberOfCodes = 0;
+  }
+
+  private static int direction(int rowOffset, int columnOffset) {
+    if (Math.abs(rowOffset) > 1 || Math.abs(columnOffset) > 1) {
+      throw new IllegalArgumentException("DeltaEncodedTrajectory: locations should be adjacent");
+    }
+    var index = (rowOffset + 1) * 3 + (columnOffset + 1);
+    return index < 4 ? index : index - 1;
+  }
+
+  private void append(int code) {
+    if (numberOfCodes == codes.length) {
+      codes = Arrays.copyOf(codes, 2 * codes.length);
+    }
+    codes[numberOfCodes++] = (byte) code;
+  }
+
+  @Override
+  public void add(int row, int column) {
+    if (size > 0) {
+      var last = numberOfCodes > 0 ? codes[numberOfCodes - 1] & 0xFF : -1;
+      if (row == lastRow && column == lastColumn) {
+        if (last >= 0 && (last & WAIT) != 0 && (last & MAXIMUM_WAIT_CODE) < MAXIMUM_WAIT_CODE) {
+          codes[numberOfCodes - 1] = (byte) (last + 1);
+        } else {
+          append(WAIT);
+        }
+      } else {
+        var direction = direction(row - lastRow, column - lastColumn);
+        if (last >= 0 && (last & (WAIT | PAIR)) == 0) {
+          codes[numberOfCodes - 1] = (byte) (PAIR | (last << 3) | direction);
+        } else {
+          append(direction);
+        }
+      }
+    } else {
+      firstRow = row;
+      firstColumn = column;
+    }
+    lastRow = row;
+    lastColumn = column;
+    size++;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void forEach(LocationConsumer consumer) {
+    if (size == 0) {
+      return;
+    }
+    var timeStep = 0;
+    var row = firstRow;
+    var column = firstColumn;
+    consumer.accept(timeStep++, row, column);
+    for (int i = 0; i < numberOfCodes; i++) {
+      var code = codes[i] & 0xFF;
+      if ((code & WAIT) != 0) {
+        for (int n = (code & MAXIMUM_WAIT_CODE) + 1; n > 0; n--) {
+          consumer.accept(timeStep++, row, column);
+        }
+      } else {
+        if ((code & PAIR) != 0) {
+          var direction = (code >> 3) & 0x7;
+          row += ROW_OFFSETS[direction];
+          column += COLUMN_OFFSETS[direction];
+          consumer.accept(timeStep++, row, column);
+        }
+        var direction = code & 0x7;
+        row += ROW_OFFSETS[direction];
+        column += COLUMN_OFFSETS[direction];
+        consumer.accept(timeStep++, row, column);
+      }
+    }
+  }
+}
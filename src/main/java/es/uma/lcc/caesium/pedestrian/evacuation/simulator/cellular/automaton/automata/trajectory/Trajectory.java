@@ -0,0 +1,60 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.trajectory;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interface representing the trajectory followed by a pedestrian: location it occupied at each discrete time step,
+ * starting with its initial location.
+ */
+public interface Trajectory {
+  /**
+   * Functional interface for visiting locations in a trajectory.
+   */
+  @FunctionalInterface
+  interface LocationConsumer {
+    /**
+     * Visits a location in a trajectory.
+     *
+     * @param timeStep discrete time step when location was occupied.
+     * @param row      vertical coordinate of location.
+     * @param column   horizontal coordinate of location.
+     */
+    void accept(int timeStep, int row, int column);
+  }
+
+  /**
+   * Appends location occupied at next discrete time step.
+   *
+   * @param row    vertical coordinate of location.
+   * @param column horizontal coordinate of location.
+   */
+  void add(int row, int column);
+
+  /**
+   * Number of locations in this trajectory.
+   *
+   * @return number of locations in this trajectory.
+   */
+  int size();
+
+  /**
+   * Visits all locations in this trajectory, in order.
+   *
+   * @param consumer visitor for each location.
+   */
+  void forEach(LocationConsumer consumer);
+
+  /**
+   * Decodes this trajectory as a list of locations.
+   *
+   * @return a new list with all locations in this trajectory, in order.
+   */
+  default List<Location> toList() {
+    var locations = new ArrayList<Location>(size());
+    forEach((timeStep, row, column) -> locations.add(new Location(row, column)));
+    return locations;
+  }
+}
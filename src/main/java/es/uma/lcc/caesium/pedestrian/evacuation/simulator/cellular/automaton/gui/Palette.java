@@ -0,0 +1,20 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.gui;
+
+import java.awt.*;
+
+/**
+ * Colors used for painting simulations in a GUI. They are kept apart from classes of automata, so that AWT is only
+ * loaded when a simulation is painted.
+ */
+public final class Palette {
+  public static final Color
+      PEDESTRIAN_FILL = new Color(0, 120, 227),
+      PEDESTRIAN_OUTLINE = new Color(0, 71, 189),
+      EXIT_FILL = new Color(0, 201, 20),
+      EXIT_OUTLINE = new Color(41, 175, 52),
+      BLOCK_FILL = new Color(179, 6, 0),
+      BLOCK_OUTLINE = new Color(142, 5, 0);
+
+  private Palette() {
+  }
+}
@@ -0,0 +1,74 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.ManhattanStaticFloorField;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that sources of randomness built from cellular automaton parameters use the algorithm that was chosen.
+ */
+class CellularAutomatonParametersTest {
+  private static CellularAutomatonParameters.BuilderWithScenarioWithTimeLimit builder() {
+    var scenario = new Scenario.Builder()
+        .rows(10)
+        .columns(10)
+        .cellDimension(0.4)
+        .floorField(ManhattanStaticFloorField::of)
+        .build();
+    scenario.setExit(new Rectangle(0, 4, 1, 2));
+    return new CellularAutomatonParameters.Builder()
+        .scenario(scenario)
+        .timeLimit(60);
+  }
+
+  private static long[] draws(RandomGenerator generator) {
+    var draws = new long[8];
+    for (int i = 0; i < draws.length; i++) {
+      draws[i] = generator.nextLong();
+    }
+    return draws;
+  }
+
+  @Test
+  void seedAloneUsesSplitMix() {
+    var parameters = builder().seed(42).build();
+
+    assertEquals(SplittableRandom.class, parameters.randomGenerator().getClass(), "default algorithm");
+    assertEquals(new SplittableRandom(42).nextLong(), parameters.randomGenerator().nextLong(), "seeded stream");
+  }
+
+  @Test
+  void injectedGeneratorKeepsItsAlgorithm() {
+    var injected = RandomGeneratorFactory.<RandomGenerator.SplittableGenerator>of("L64X128MixRandom").create(7);
+    var parameters = builder().randomGenerator(injected).build();
+    var automaton = new CellularAutomaton(parameters);
+
+    assertEquals(injected.getClass(), parameters.randomGenerator().getClass(), "algorithm of parameters");
+    assertEquals(injected.getClass(), automaton.random.getClass(), "algorithm of automaton");
+    assertEquals(injected.getClass(), parameters.withSeed(1).randomGenerator().getClass(), "algorithm after reseeding");
+    assertArrayEquals(draws(parameters.randomGenerator()), draws(parameters.randomGenerator()), "same stream");
+  }
+
+  @Test
+  void chosenAlgorithmIsUsedWithSeed() {
+    var parameters = builder().randomAlgorithm("L32X64MixRandom").seed(3).build();
+
+    var expected = RandomGeneratorFactory.of("L32X64MixRandom").create(3);
+    assertEquals(expected.getClass(), parameters.randomGenerator().getClass(), "chosen algorithm");
+    assertArrayEquals(draws(expected), draws(parameters.randomGenerator()), "seeded stream");
+  }
+
+  @Test
+  void nonSplittableAlgorithmIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> builder().randomAlgorithm("Xoroshiro128PlusPlus"));
+  }
+}
@@ -0,0 +1,118 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing.TraceSink;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link AllocationFreeCellularAutomaton} produces same trajectories as {@link CellularAutomaton} for a
+ * given seed.
+ */
+class EngineEquivalenceTest {
+  private static final int ROWS = 60;
+  private static final int COLUMNS = 40;
+  private static final int NUMBER_OF_PEDESTRIANS = 500;
+
+  /**
+   * Trace sink recording location of every pedestrian at each time step. Pedestrians are numbered in order of
+   * appearance, as identifiers are global and differ between automata.
+   */
+  private static final class RecordingSink implements TraceSink {
+    private final Map<Integer, Integer> numbers = new HashMap<>();
+    private final List<String> snapshots = new ArrayList<>();
+
+    @Override
+    public void begin(double cellDimension) {
+    }
+
+    @Override
+    public void snapshot(int timeStep, Crowd crowd) {
+      var snapshot = new StringBuilder().append(timeStep).append(':');
+      crowd.forEach((identifier, row, column) -> {
+        var number = numbers.computeIfAbsent(identifier, key -> numbers.size());
+        snapshot.append(' ').append(number).append('@').append(row).append(',').append(column);
+      });
+      snapshots.add(snapshot.toString());
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Scenario with exits on two sides and randomly placed blocks.
+   */
+  private static Scenario scenario(long seed) {
+    var scenario = new Scenario.Builder()
+        .rows(ROWS)
+        .columns(COLUMNS)
+        .cellDimension(0.4)
+        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .build();
+    scenario.setExit(new Rectangle(0, COLUMNS / 2, 1, 3));
+    scenario.setExit(new Rectangle(ROWS / 2, COLUMNS - 1, 3, 1));
+    var random = new SplittableRandom(seed);
+    for (int block = 0; block < 20; block++) {
+      scenario.setBlock(new Rectangle(2 + random.nextInt(ROWS - 6), 2 + random.nextInt(COLUMNS - 6)
+          , 1 + random.nextInt(3), 1 + random.nextInt(3)));
+    }
+    return scenario;
+  }
+
+  private static RecordingSink simulate(Function<CellularAutomatonParameters, CellularAutomaton> buildAutomaton
+      , Scenario scenario, long seed, double[][] evacuationTimes, int index) {
+    var parameters = new CellularAutomatonParameters.Builder()
+        .scenario(scenario)
+        .timeLimit(10 * 60)
+        .neighbourhood(MooreNeighbourhood::of)
+        .pedestrianReferenceVelocity(1.3)
+        .seed(seed)
+        .build();
+    var automaton = buildAutomaton.apply(parameters);
+    var random = new SplittableRandom(seed);
+    automaton.addPedestriansUniformly(NUMBER_OF_PEDESTRIANS, () ->
+        new PedestrianParameters.Builder()
+            .fieldAttractionBias(random.nextDouble(1.0, 10.0))
+            .crowdRepulsion(random.nextDouble(0.1, 0.5))
+            .velocityPercent(random.nextDouble(0.3, 1.0))
+            .build());
+    var sink = new RecordingSink();
+    automaton.setTraceSink(sink);
+    automaton.simulate();
+    evacuationTimes[index] = automaton.evacuationTimes();
+    return sink;
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {1, 2, 3, 4, 5})
+  void trajectoriesAreIdentical(long seed) {
+    var scenario = scenario(seed);
+    var evacuationTimes = new double[2][];
+    var expected = simulate(CellularAutomaton::new, scenario, seed, evacuationTimes, 0);
+    var actual = simulate(AllocationFreeCellularAutomaton::new, scenario, seed, evacuationTimes, 1);
+
+    assertTrue(expected.snapshots.size() > 1, "simulation should run for some time steps");
+    assertEquals(expected.snapshots.size(), actual.snapshots.size(), "number of time steps");
+    for (int t = 0; t < expected.snapshots.size(); t++) {
+      assertEquals(expected.snapshots.get(t), actual.snapshots.get(t), "locations at time step " + t);
+    }
+    assertArrayEquals(evacuationTimes[0], evacuationTimes[1], "evacuation times");
+  }
+}
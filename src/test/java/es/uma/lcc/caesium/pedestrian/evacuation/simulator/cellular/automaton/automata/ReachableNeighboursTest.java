@@ -0,0 +1,100 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that numbers of reachable neighbours, which automata update incrementally as pedestrians move, always agree
+ * with those counted from scratch.
+ */
+class ReachableNeighboursTest {
+  private static final int ROWS = 100;
+  private static final int COLUMNS = 60;
+  private static final int NUMBER_OF_PEDESTRIANS = 2500;
+  private static final int NUMBER_OF_TIME_STEPS = 60;
+
+  /**
+   * Scenario with exits on every side and randomly placed blocks.
+   */
+  private static Scenario scenario(long seed) {
+    var scenario = new Scenario.Builder()
+        .rows(ROWS)
+        .columns(COLUMNS)
+        .cellDimension(0.4)
+        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .build();
+    scenario.setExit(new Rectangle(0, COLUMNS / 2, 1, 3));
+    scenario.setExit(new Rectangle(ROWS - 1, COLUMNS / 3, 1, 3));
+    scenario.setExit(new Rectangle(ROWS / 2, 0, 3, 1));
+    scenario.setExit(new Rectangle(ROWS / 3, COLUMNS - 1, 3, 1));
+    var random = new SplittableRandom(seed);
+    for (int block = 0; block < 40; block++) {
+      scenario.setBlock(new Rectangle(2 + random.nextInt(ROWS - 6), 2 + random.nextInt(COLUMNS - 6)
+          , 1 + random.nextInt(3), 1 + random.nextInt(3)));
+    }
+    return scenario;
+  }
+
+  private static CellularAutomaton automaton(String automatonType, Scenario scenario, long seed) {
+    var parameters = new CellularAutomatonParameters.Builder()
+        .scenario(scenario)
+        .timeLimit(10 * 60)
+        .neighbourhood(MooreNeighbourhood::of)
+        .pedestrianReferenceVelocity(1.3)
+        .seed(seed)
+        .build();
+    return switch (automatonType) {
+      case "CellularAutomaton" -> new CellularAutomaton(parameters);
+      case "AllocationFreeCellularAutomaton" -> new AllocationFreeCellularAutomaton(parameters);
+      case "ScheduledCellularAutomaton" -> new ScheduledCellularAutomaton(parameters);
+      case "ParallelCellularAutomaton" -> new ParallelCellularAutomaton(parameters, 4);
+      case "StripedCellularAutomaton" -> new StripedCellularAutomaton(parameters, 4);
+      default -> throw new IllegalArgumentException("automaton: unknown automaton " + automatonType);
+    };
+  }
+
+  private static void assertCachedCountsAreExact(CellularAutomaton automaton) {
+    for (int row = 0; row < automaton.getRows(); row++) {
+      for (int column = 0; column < automaton.getColumns(); column++) {
+        var cell = automaton.occupied.index(row, column);
+        assertEquals(automaton.countReachableNeighbours(cell), automaton.numberOfReachableNeighbours[cell]
+            , "cached number of reachable neighbours of cell (" + row + ", " + column + ") after "
+                + automaton.getTimeSteps() + " time steps");
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"CellularAutomaton"
+      , "AllocationFreeCellularAutomaton"
+      , "ScheduledCellularAutomaton"
+      , "ParallelCellularAutomaton"
+      , "StripedCellularAutomaton"})
+  void cachedNumbersOfReachableNeighboursAreExact(String automatonType) {
+    for (long seed = 1; seed <= 3; seed++) {
+      var automaton = automaton(automatonType, scenario(seed), seed);
+      var random = automaton.getRandomGenerator();
+      automaton.addPedestriansUniformly(NUMBER_OF_PEDESTRIANS, () ->
+          new PedestrianParameters.Builder()
+              .fieldAttractionBias(random.nextDouble(1.0, 10.0))
+              .crowdRepulsion(random.nextDouble(0.1, 0.5))
+              .velocityPercent(random.nextDouble(0.3, 1.0))
+              .build());
+      assertCachedCountsAreExact(automaton);
+      while (automaton.step(1) > 0 && automaton.getTimeSteps() < NUMBER_OF_TIME_STEPS) {
+        assertCachedCountsAreExact(automaton);
+      }
+      assertTrue(automaton.numberOfEvacuees() > 0, "some pedestrians should have evacuated");
+    }
+  }
+}
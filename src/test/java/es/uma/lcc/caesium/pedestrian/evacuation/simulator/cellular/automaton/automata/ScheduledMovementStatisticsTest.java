@@ -0,0 +1,193 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link ScheduledCellularAutomaton} moves pedestrians with same statistics as
+ * {@link AllocationFreeCellularAutomaton}. Trajectories differ for a given seed, so estimates over many seeded
+ * replications are compared: they should not differ in more than {@link #TOLERANCE} standard errors.
+ */
+class ScheduledMovementStatisticsTest {
+  private static final int ROWS = 30;
+  private static final int COLUMNS = 20;
+  private static final int NUMBER_OF_PEDESTRIANS = 120;
+  private static final int NUMBER_OF_REPLICATIONS = 300;
+  private static final double TOLERANCE = 4;
+  /**
+   * Length of corridor where a single pedestrian walks. It is long enough for a pedestrian never to reach exit.
+   */
+  private static final int CORRIDOR_ROWS = 100;
+  private static final int NUMBER_OF_WALKS = 4000;
+
+  /**
+   * Mean and standard error of a statistic over replications.
+   */
+  private record Estimate(double mean, double standardError) {
+    static Estimate of(double[] values) {
+      var sum = 0.0;
+      for (var value : values) {
+        sum += value;
+      }
+      var mean = sum / values.length;
+      var sumOfSquares = 0.0;
+      for (var value : values) {
+        sumOfSquares += (value - mean) * (value - mean);
+      }
+      var variance = sumOfSquares / (values.length - 1);
+      return new Estimate(mean, Math.sqrt(variance / values.length));
+    }
+  }
+
+  /**
+   * Means, over replications, of mean evacuation time and mean number of steps of pedestrians.
+   */
+  private record Estimates(Estimate evacuationTime, Estimate steps) {
+  }
+
+  private static Scenario scenario() {
+    var scenario = new Scenario.Builder()
+        .rows(ROWS)
+        .columns(COLUMNS)
+        .cellDimension(0.4)
+        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .build();
+    scenario.setExit(new Rectangle(0, COLUMNS / 2 - 1, 1, 2));
+    scenario.setBlock(new Rectangle(ROWS / 2, 2, 1, COLUMNS - 6));
+    return scenario;
+  }
+
+  private static Estimates estimates(Function<CellularAutomatonParameters, AllocationFreeCellularAutomaton>
+                                         buildAutomaton, Scenario scenario) {
+    var meanEvacuationTimes = new double[NUMBER_OF_REPLICATIONS];
+    var meanSteps = new double[NUMBER_OF_REPLICATIONS];
+    for (int replication = 0; replication < NUMBER_OF_REPLICATIONS; replication++) {
+      var parameters = new CellularAutomatonParameters.Builder()
+          .scenario(scenario)
+          .timeLimit(60 * 60)
+          .neighbourhood(MooreNeighbourhood::of)
+          .pedestrianReferenceVelocity(1.3)
+          .seed(replication)
+          .build();
+      var automaton = buildAutomaton.apply(parameters);
+      // slow profiles are those whose waiting times are scheduled
+      var random = new SplittableRandom(replication);
+      automaton.addPedestriansUniformly(NUMBER_OF_PEDESTRIANS, () ->
+          new PedestrianParameters.Builder()
+              .fieldAttractionBias(random.nextDouble(1.0, 10.0))
+              .crowdRepulsion(random.nextDouble(0.1, 0.5))
+              .velocityPercent(random.nextDouble(0.2, 1.0))
+              .build());
+      automaton.simulate();
+      assertEquals(0, automaton.numberOfNonEvacuees(), "all pedestrians should evacuate");
+
+      var evacuationTimes = automaton.evacuationTimes();
+      var totalEvacuationTime = 0.0;
+      for (var time : evacuationTimes) {
+        totalEvacuationTime += time;
+      }
+      meanEvacuationTimes[replication] = totalEvacuationTime / evacuationTimes.length;
+
+      var pedestrians = automaton.pedestrians;
+      var totalSteps = 0.0;
+      for (int i = 0; i < automaton.numberOfEvacuees(); i++) {
+        totalSteps += pedestrians.numberOfSteps(pedestrians.outOfScenario(i));
+      }
+      meanSteps[replication] = totalSteps / automaton.numberOfEvacuees();
+    }
+    return new Estimates(Estimate.of(meanEvacuationTimes), Estimate.of(meanSteps));
+  }
+
+  /**
+   * Corridor with an exit at one end, where a single pedestrian always has a free cell to move to.
+   */
+  private static Scenario corridor() {
+    var scenario = new Scenario.Builder()
+        .rows(CORRIDOR_ROWS)
+        .columns(9)
+        .cellDimension(0.4)
+        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .build();
+    scenario.setExit(new Rectangle(0, 3, 1, 3));
+    return scenario;
+  }
+
+  private static void assertSameMean(Estimate expected, Estimate actual, String statistic) {
+    var standardError = Math.hypot(expected.standardError(), actual.standardError());
+    var difference = Math.abs(expected.mean() - actual.mean());
+    assertTrue(difference <= TOLERANCE * standardError
+        , statistic + ": mean " + actual.mean() + " differs from " + expected.mean() + " in " + difference
+            / standardError + " standard errors");
+  }
+
+  /**
+   * A pedestrian alone in a corridor moves whenever it tries to, so that, as it tries at each time step with
+   * probability given by its velocity percent, its number of moves follows a binomial distribution. Slowest
+   * pedestrian often waits longer than a turn of timing wheel.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"AllocationFreeCellularAutomaton", "ScheduledCellularAutomaton"})
+  void numberOfMovesIsBinomial(String automatonType) {
+    var scenario = corridor();
+    assertBinomialNumberOfMoves(automatonType, scenario, 0.3, 40);
+    assertBinomialNumberOfMoves(automatonType, scenario, 0.02, 400);
+  }
+
+  private static void assertBinomialNumberOfMoves(String automatonType, Scenario scenario, double velocityPercent
+      , int numberOfTimeSteps) {
+    var pedestrianParameters = new PedestrianParameters.Builder()
+        .fieldAttractionBias(4.0)
+        .crowdRepulsion(0.3)
+        .velocityPercent(velocityPercent)
+        .build();
+    var numbersOfMoves = new double[NUMBER_OF_WALKS];
+    var squaredDeviations = new double[NUMBER_OF_WALKS];
+    var expectedMean = numberOfTimeSteps * velocityPercent;
+    var expectedVariance = expectedMean * (1 - velocityPercent);
+    for (int walk = 0; walk < NUMBER_OF_WALKS; walk++) {
+      var parameters = new CellularAutomatonParameters.Builder()
+          .scenario(scenario)
+          .timeLimit(60 * 60)
+          .neighbourhood(MooreNeighbourhood::of)
+          .pedestrianReferenceVelocity(1.3)
+          .seed(walk)
+          .build();
+      var automaton = automatonType.equals("ScheduledCellularAutomaton")
+          ? new ScheduledCellularAutomaton(parameters)
+          : new AllocationFreeCellularAutomaton(parameters);
+      assertTrue(automaton.addPedestrian(CORRIDOR_ROWS - 10, 4, pedestrianParameters), "pedestrian should be added");
+      automaton.step(numberOfTimeSteps);
+      assertEquals(1, automaton.numberOfNonEvacuees(), "pedestrian should not reach exit");
+
+      numbersOfMoves[walk] = automaton.pedestrians.numberOfSteps(automaton.pedestrians.inScenario(0));
+      squaredDeviations[walk] = (numbersOfMoves[walk] - expectedMean) * (numbersOfMoves[walk] - expectedMean);
+    }
+    // an exact expectation has no standard error
+    assertSameMean(new Estimate(expectedMean, 0), Estimate.of(numbersOfMoves)
+        , "number of moves with velocity percent " + velocityPercent);
+    assertSameMean(new Estimate(expectedVariance, 0), Estimate.of(squaredDeviations)
+        , "variance of number of moves with velocity percent " + velocityPercent);
+  }
+
+  @Test
+  void movementStatisticsAreSame() {
+    var scenario = scenario();
+    var expected = estimates(AllocationFreeCellularAutomaton::new, scenario);
+    var actual = estimates(ScheduledCellularAutomaton::new, scenario);
+
+    assertSameMean(expected.evacuationTime(), actual.evacuationTime(), "evacuation time");
+    assertSameMean(expected.steps(), actual.steps(), "number of steps");
+  }
+}
@@ -0,0 +1,139 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField;
+
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that cached static floor fields are only computed when their geometry has not been cached yet, and that
+ * values read from cache are those computed.
+ */
+class CachedStaticFloorFieldTest {
+  private static final int ROWS = 30;
+  private static final int COLUMNS = 20;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Number of floor fields built by {@link #counting(StaticFloorFieldType)}.
+   */
+  private int numberOfBuilds = 0;
+
+  private StaticFloorFieldType counting(StaticFloorFieldType type) {
+    return new StaticFloorFieldType(type.name(), scenario -> {
+      numberOfBuilds++;
+      return type.build().apply(scenario);
+    });
+  }
+
+  private static Scenario scenario(boolean withBlock) {
+    var scenario = new Scenario.Builder()
+        .rows(ROWS)
+        .columns(COLUMNS)
+        .cellDimension(0.4)
+        .floorField(ManhattanStaticFloorField::of)
+        .build();
+    scenario.setExit(new Rectangle(0, COLUMNS / 2, 1, 3));
+    scenario.setBlock(new Rectangle(ROWS / 2, 2, 1, COLUMNS - 4));
+    if (withBlock) {
+      scenario.setBlock(new Rectangle(ROWS / 4, 0, 1, COLUMNS - 4));
+    }
+    return scenario;
+  }
+
+  private CachedStaticFloorField initialized(StaticFloorFieldType type, Scenario scenario) {
+    var floorField = new CachedStaticFloorField(type, scenario, directory);
+    floorField.initialize();
+    assertTrue(floorField.getCacheFailure().isEmpty(), "cache should be accessible");
+    return floorField;
+  }
+
+  private static void assertSameValues(FloorField expected, FloorField actual) {
+    for (int row = 0; row < ROWS; row++) {
+      for (int column = 0; column < COLUMNS; column++) {
+        assertEquals(expected.getField(row, column), actual.getField(row, column)
+            , "field of cell (" + row + ", " + column + ")");
+      }
+    }
+  }
+
+  private static StaticFloorField computed(StaticFloorFieldType type, Scenario scenario) {
+    var floorField = type.build().apply(scenario);
+    floorField.initialize();
+    return floorField;
+  }
+
+  private long numberOfCacheFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void missComputesAndStoresField() throws IOException {
+    var type = DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE;
+    var scenario = scenario(false);
+    var floorField = initialized(counting(type), scenario);
+
+    assertEquals(1, numberOfBuilds, "floor field should be built on a miss");
+    assertEquals(1L, numberOfCacheFiles(), "computed field should be stored");
+    assertSameValues(computed(type, scenario), floorField);
+  }
+
+  @Test
+  void hitReadsFieldWithoutBuildingIt() {
+    var type = DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE;
+    initialized(type, scenario(false));
+
+    var scenario = scenario(false);
+    var floorField = initialized(counting(type), scenario);
+
+    assertEquals(0, numberOfBuilds, "floor field should not be built on a hit");
+    assertSameValues(computed(type, scenario), floorField);
+  }
+
+  @Test
+  void changingGeometryInvalidatesCache() throws IOException {
+    var type = DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE;
+    initialized(type, scenario(false));
+
+    var scenario = scenario(true);
+    var floorField = initialized(counting(type), scenario);
+
+    assertEquals(1, numberOfBuilds, "floor field should be built for a new geometry");
+    assertEquals(2L, numberOfCacheFiles(), "field for new geometry should be stored apart");
+    assertSameValues(computed(type, scenario), floorField);
+  }
+
+  @Test
+  void differentTypesDoNotShareCache() {
+    var scenario = scenario(false);
+    initialized(DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE, scenario);
+
+    var floorField = initialized(counting(ManhattanStaticFloorField.TYPE), scenario);
+
+    assertEquals(1, numberOfBuilds, "floor field of another type should be built");
+    assertSameValues(computed(ManhattanStaticFloorField.TYPE, scenario), floorField);
+  }
+
+  @Test
+  void typesAgreeWithFloorFields() {
+    var scenario = scenario(false);
+    for (var type : new StaticFloorFieldType[]{ManhattanStaticFloorField.TYPE
+        , DijkstraStaticFloorFieldWithMooreNeighbourhood.TYPE
+        , DijkstraStaticFloorFieldWithVonNewmanNeighbourhood.TYPE
+        , EuclideanStaticFloorField.type(EuclideanStaticFloorField.Solver.FAST_SWEEPING)}) {
+      assertEquals(type.name(), type.build().apply(scenario).getType(), "name of type");
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.tracing;
+
+import com.github.cliftonlabs.json_simple.JsonException;
+import com.github.cliftonlabs.json_simple.JsonObject;
+import com.github.cliftonlabs.json_simple.Jsoner;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.AllocationFreeCellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomaton;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.CellularAutomatonParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.floorField.DijkstraStaticFloorFieldWithMooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.neighbourhood.MooreNeighbourhood;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.pedestrian.PedestrianParameters;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.automata.scenario.Scenario;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.geometry._2d.Rectangle;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Pedestrian;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Snapshot;
+import es.uma.lcc.caesium.pedestrian.evacuation.simulator.cellular.automaton.trace.Trace;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that traces streamed by {@link JsonTraceWriter} are read back by trace module as same traces that automata
+ * build in memory.
+ */
+class JsonTraceWriterTest {
+  @TempDir
+  Path directory;
+
+  private static CellularAutomaton populatedAutomaton(Function<CellularAutomatonParameters, CellularAutomaton> build) {
+    var scenario = new Scenario.Builder()
+        .rows(30)
+        .columns(20)
+        .cellDimension(0.4)
+        .floorField(DijkstraStaticFloorFieldWithMooreNeighbourhood::of)
+        .build();
+    scenario.setExit(new Rectangle(0, 8, 1, 4));
+    scenario.setBlock(new Rectangle(15, 2, 1, 10));
+    var parameters = new CellularAutomatonParameters.Builder()
+        .scenario(scenario)
+        .timeLimit(10 * 60)
+        .neighbourhood(MooreNeighbourhood::of)
+        .pedestrianReferenceVelocity(1.3)
+        .seed(11)
+        .build();
+    var automaton = build.apply(parameters);
+    automaton.addPedestriansUniformly(80, new PedestrianParameters.Builder()
+        .fieldAttractionBias(4.0)
+        .crowdRepulsion(0.3)
+        .velocityPercent(0.8)
+        .build());
+    return automaton;
+  }
+
+  /**
+   * Describes pedestrians in a snapshot in order of identifier, as sinks receive them in order of processing.
+   */
+  private static String describe(Snapshot snapshot) {
+    return Arrays.stream(snapshot.crowd())
+        .sorted(Comparator.comparingInt(Pedestrian::id))
+        .map(pedestrian -> pedestrian.id() + "@" + pedestrian.location().domain() + ":"
+            + pedestrian.location().coordinates().x() + "," + pedestrian.location().coordinates().y())
+        .collect(Collectors.joining(" "));
+  }
+
+  private static void assertSameTrace(Trace expected, Trace actual) {
+    assertEquals(expected.cellDimension(), actual.cellDimension(), 0.0, "cell dimension");
+    assertTrue(expected.snapshots().length > 1, "simulation should run for some time steps");
+    assertEquals(expected.snapshots().length, actual.snapshots().length, "number of snapshots");
+    for (int t = 0; t < expected.snapshots().length; t++) {
+      assertEquals(expected.snapshots()[t].timestamp(), actual.snapshots()[t].timestamp(), "timestamp");
+      assertEquals(describe(expected.snapshots()[t]), describe(actual.snapshots()[t]), "crowd at time step " + t);
+    }
+  }
+
+  @Test
+  void streamedTraceIsSameAsTraceInMemory() throws IOException, JsonException {
+    for (Function<CellularAutomatonParameters, CellularAutomaton> build :
+        Arrays.<Function<CellularAutomatonParameters, CellularAutomaton>>asList(CellularAutomaton::new
+            , AllocationFreeCellularAutomaton::new)) {
+      var automaton = populatedAutomaton(build);
+      var output = new StringWriter();
+      try (var traceWriter = new JsonTraceWriter(output)) {
+        automaton.setTraceSink(traceWriter);
+        automaton.simulate();
+        automaton.setTraceSink(null);
+      }
+
+      var streamed = Trace.fromJson((JsonObject) Jsoner.deserialize(output.toString()));
+      assertSameTrace(automaton.getTrace(), streamed);
+    }
+  }
+
+  @Test
+  void gzipTraceFileIsSameAsTraceInMemory() throws IOException, JsonException {
+    var automaton = populatedAutomaton(AllocationFreeCellularAutomaton::new);
+    var path = directory.resolve("traces").resolve("trace.json.gz");
+    try (var traceWriter = JsonTraceWriter.of(path)) {
+      automaton.setTraceSink(traceWriter);
+      automaton.simulate();
+      automaton.setTraceSink(null);
+    }
+
+    Trace streamed;
+    try (var reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(path))
+        , StandardCharsets.UTF_8)) {
+      streamed = Trace.fromJson((JsonObject) Jsoner.deserialize(reader));
+    }
+    assertSameTrace(automaton.getTrace(), streamed);
+  }
+}